@@ -0,0 +1,61 @@
+/**
+ * ActionMetrics Class<br /><br />
+ * How many times one kind of action ran and how long it took, e.g. every "m" sent to processChoice().<p>
+ * Times are measured from the start of the action to its end, so an action that asks the player a question
+ * (like a trip to the shop) includes the time spent waiting for the answer.
+ */
+
+public final class ActionMetrics implements ActionMetricsMBean {
+    // instance variables
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * @param name The name the action is shown under.
+     */
+    public ActionMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one run of the action.
+     *
+     * @param startNanos The System.nanoTime() when it started.
+     */
+    public void finished(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    // accessors
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    public long getMeanNanos() {
+        return latency.getMeanNanos();
+    }
+
+    public long getP50Nanos() {
+        return latency.getPercentile(0.5);
+    }
+
+    public long getP99Nanos() {
+        return latency.getPercentile(0.99);
+    }
+
+    public long getMaxNanos() {
+        return latency.getMaxNanos();
+    }
+
+    /**
+     * @return One line: the name, the count and the times in microseconds.
+     */
+    public String infoString() {
+        return String.format("%-22s %,12d runs  mean %,10.1f us  p50 %,10.1f us  p99 %,10.1f us  max %,10.1f us",
+                name, getCount(), getMeanNanos() / 1e3, getP50Nanos() / 1e3, getP99Nanos() / 1e3, getMaxNanos() / 1e3);
+    }
+}
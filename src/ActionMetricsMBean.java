@@ -0,0 +1,18 @@
+/**
+ * ActionMetricsMBean Interface<br /><br />
+ * What JMX shows for one kind of action: how often it ran and how long it took.
+ */
+
+public interface ActionMetricsMBean {
+    String getName();
+
+    long getCount();
+
+    long getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP99Nanos();
+
+    long getMaxNanos();
+}
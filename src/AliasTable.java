@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+/**
+ * AliasTable Class<br /><br />
+ * Picks one of several outcomes with fixed, uneven odds, using Walker's alias method.<p>
+ * Building the table splits the odds into one column per outcome, each holding at most two outcomes:
+ * its own and an "alias" that fills the rest of the column. Picking then takes a single random number:
+ * the whole part chooses the column and the fraction chooses between the two outcomes in it.
+ * That is the same amount of work however many outcomes there are.
+ */
+
+public final class AliasTable {
+    // instance variables
+    private final double[] odds;  // the chance of each outcome, adding up to 1
+    private final double[] split; // in each column, the share that is its own outcome
+    private final int[] alias;    // in each column, the outcome that fills the rest
+
+    /**
+     * @param weights How likely each outcome is, relative to the others. They don't need to add up to 1.
+     */
+    public AliasTable(double... weights) {
+        int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("An alias table needs at least one outcome");
+        }
+        double total = 0;
+        for (double weight : weights) {
+            if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Weights must be finite and not negative");
+            }
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one weight must be above zero");
+        }
+
+        odds = new double[n];
+        split = new double[n];
+        alias = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            odds[i] = weights[i] / total;
+            scaled[i] = odds[i] * n;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            split[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // whatever is left over fills its own column (up to rounding error)
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            split[i] = 1;
+            alias[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            split[i] = 1;
+            alias[i] = i;
+        }
+    }
+
+    /**
+     * Builds a table where every outcome is as likely as the others.
+     *
+     * @param n How many outcomes there are.
+     * @return The table.
+     */
+    public static AliasTable uniform(int n) {
+        double[] weights = new double[n];
+        Arrays.fill(weights, 1);
+        return new AliasTable(weights);
+    }
+
+    /**
+     * Picks an outcome with a single roll of the game's dice.
+     *
+     * @param random The game's source of random rolls.
+     * @return The index of the outcome.
+     */
+    public int sample(GameRandom random) {
+        return sample(random.nextDouble());
+    }
+
+    /**
+     * Picks an outcome from a number that has already been rolled.
+     *
+     * @param roll A random number, at least 0 and less than 1.
+     * @return The index of the outcome.
+     */
+    public int sample(double roll) {
+        double column = roll * split.length;
+        int i = (int) column;
+        if (i >= split.length) {
+            i = split.length - 1; // only if roll rounds up to 1
+        }
+        return (column - i < split[i]) ? i : alias[i];
+    }
+
+    /**
+     * @return How many outcomes there are.
+     */
+    public int size() {
+        return odds.length;
+    }
+
+    /**
+     * @param outcome The index of an outcome.
+     * @return The chance of picking it.
+     */
+    public double getOdds(int outcome) {
+        return odds[outcome];
+    }
+}
@@ -0,0 +1,40 @@
+import java.io.PrintStream;
+
+/**
+ * The AnsiRenderer prints the game to a terminal, coloring the text with the escape codes in Colors.<p>
+ * Black text is printed in the terminal's own color, since black on a dark terminal can't be read.
+ */
+
+public class AnsiRenderer implements GameRenderer {
+    // constants
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+    // instance variables
+    private PrintStream out;
+
+    /**
+     * @param out Where the text is printed, usually System.out.
+     */
+    public AnsiRenderer(PrintStream out) {
+        this.out = out;
+    }
+
+    public void addTextToWindow(String text, TextColor color) {
+        String code = color.getAnsi();
+        if (code == Colors.RESET) {
+            out.print(text);
+        } else {
+            out.print(code);
+            out.print(text);
+            out.print(Colors.RESET);
+        }
+    }
+
+    public void clear() {
+        out.print(CLEAR_SCREEN);
+    }
+
+    public void flush() {
+        out.flush();
+    }
+}
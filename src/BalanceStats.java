@@ -0,0 +1,151 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * BalanceStats Class<br /><br />
+ * The streaming analytics stage of a simulation: every finished game goes in as soon as it ends and is
+ * folded into a ValueSketch per mode and per measure (final gold, turns, treasures found, brawls won and lost,
+ * items that broke, and whether the game was won), then thrown away.<p>
+ * Memory stays the same however many games are played. Each fork-join task fills in its own stats
+ * and they are merged on the way back up, like SimulationReport.<p>
+ * The results can be written out as CSV (one row per mode and measure) or as JSON.
+ */
+
+public class BalanceStats {
+    // constants
+    public static final String[] MEASURES = {"gold", "turns", "treasures", "brawlsWon", "brawlsLost", "itemsLost", "won"};
+    private static final int GOLD = 0;
+    private static final int TURNS = 1;
+    private static final int TREASURES = 2;
+    private static final int BRAWLS_WON = 3;
+    private static final int BRAWLS_LOST = 4;
+    private static final int ITEMS_LOST = 5;
+    private static final int WON = 6;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    // instance variables
+    private ValueSketch[][] sketches; // [mode][measure]
+
+    public BalanceStats() {
+        sketches = new ValueSketch[SimulationReport.MODES.length][MEASURES.length];
+        for (ValueSketch[] mode : sketches) {
+            for (int i = 0; i < mode.length; i++) {
+                mode[i] = new ValueSketch();
+            }
+        }
+    }
+
+    /**
+     * Folds a finished game into the sketches of its mode.
+     *
+     * @param result How the game ended.
+     */
+    public void record(GameResult result) {
+        ValueSketch[] mode = sketches[SimulationReport.modeIndex(result.getMode())];
+        mode[GOLD].record(result.getGold());
+        mode[TURNS].record(result.getTurns());
+        mode[TREASURES].record(result.getTreasures());
+        mode[BRAWLS_WON].record(result.getBrawlsWon());
+        mode[BRAWLS_LOST].record(result.getBrawlsLost());
+        mode[ITEMS_LOST].record(result.getItemsLost());
+        mode[WON].record(result.isWon() ? 1 : 0);
+    }
+
+    /**
+     * Adds everything another stage has seen to this one.
+     *
+     * @param other The stats to merge in.
+     */
+    public void merge(BalanceStats other) {
+        for (int m = 0; m < sketches.length; m++) {
+            for (int i = 0; i < MEASURES.length; i++) {
+                sketches[m][i].merge(other.sketches[m][i]);
+            }
+        }
+    }
+
+    /**
+     * @param mode "easy", "normal", "hard" or "samurai".
+     * @param measure One of MEASURES.
+     * @return The sketch of that measure on that mode.
+     */
+    public ValueSketch getSketch(String mode, String measure) {
+        for (int i = 0; i < MEASURES.length; i++) {
+            if (MEASURES[i].equals(measure)) {
+                return sketches[SimulationReport.modeIndex(mode)][i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown measure: " + measure);
+    }
+
+    /**
+     * @return A header row, then one row per mode and measure: count, mean, min, p50, p90, p99 and max.
+     */
+    public String toCsv() {
+        StringBuilder str = new StringBuilder("mode,measure,count,mean,min,p50,p90,p99,max\n");
+        for (int m = 0; m < sketches.length; m++) {
+            if (sketches[m][WON].getCount() == 0) {
+                continue;
+            }
+            for (int i = 0; i < MEASURES.length; i++) {
+                ValueSketch sketch = sketches[m][i];
+                str.append(SimulationReport.MODES[m]).append(',').append(MEASURES[i]).append(',')
+                        .append(sketch.getCount()).append(',')
+                        .append(String.format(Locale.ROOT, "%.4f", sketch.getMean())).append(',')
+                        .append(sketch.getMin());
+                for (double q : QUANTILES) {
+                    str.append(',').append(sketch.getQuantile(q));
+                }
+                str.append(',').append(sketch.getMax()).append('\n');
+            }
+        }
+        return str.toString();
+    }
+
+    /**
+     * @return The same numbers as toCsv(), as a JSON object keyed by mode and then by measure.
+     */
+    public String toJson() {
+        StringBuilder str = new StringBuilder("{");
+        boolean firstMode = true;
+        for (int m = 0; m < sketches.length; m++) {
+            if (sketches[m][WON].getCount() == 0) {
+                continue;
+            }
+            if (!firstMode) {
+                str.append(',');
+            }
+            firstMode = false;
+            str.append("\n  \"").append(SimulationReport.MODES[m]).append("\": {");
+            for (int i = 0; i < MEASURES.length; i++) {
+                ValueSketch sketch = sketches[m][i];
+                str.append((i == 0) ? "\n" : ",\n").append("    \"").append(MEASURES[i]).append("\": {")
+                        .append("\"count\": ").append(sketch.getCount())
+                        .append(", \"mean\": ").append(String.format(Locale.ROOT, "%.4f", sketch.getMean()))
+                        .append(", \"min\": ").append(sketch.getMin());
+                for (double q : QUANTILES) {
+                    str.append(", \"p").append(Math.round(q * 100)).append("\": ").append(sketch.getQuantile(q));
+                }
+                str.append(", \"max\": ").append(sketch.getMax()).append('}');
+            }
+            str.append("\n  }");
+        }
+        return str.append("\n}\n").toString();
+    }
+
+    /**
+     * Writes the stats to a file: JSON if its name ends in ".json", CSV otherwise.
+     *
+     * @param path The file to write.
+     */
+    public void export(Path path) throws IOException {
+        String text = path.toString().endsWith(".json") ? toJson() : toCsv();
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write(text);
+        }
+    }
+}
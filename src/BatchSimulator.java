@@ -0,0 +1,384 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * BatchSimulator Class<br /><br />
+ * Plays huge numbers of greedy hunters at once, without building a single Hunter, Town or Shop.<p>
+ * SimulationEngine plays one whole game after another through the object model, which is exact but slow.
+ * Here a batch of hunters is kept as a handful of plain arrays, one entry per hunter: gold, the kit and the
+ * treasures as bitmasks, the terrain and the town's flags as bytes, and a random state of its own.
+ * Every hunter still in the game takes one turn, then every hunter takes the next, so each pass is a short loop over
+ * arrays that sit next to each other in memory. Hunters drop out of the loop as soon as their game ends.<p>
+ * The rules are those of Town, Shop and TreasureHunter.processChoice() played by a GreedyStrategy, with the odds
+ * taken from the same GameMode tables. The dice are different (each hunter rolls its own splitmix sequence, and a
+ * new town is rolled on arrival instead of being looked up in a World, which a greedy walk practically never
+ * revisits), so the results match SimulationEngine's statistically rather than game for game.<p>
+ * Batches are spread over every core with fork-join. Like SimulationEngine, hunters take turns through the modes.<p>
+ * Usage: java BatchSimulator [hunters] [turnLimit] [seed]
+ */
+
+public class BatchSimulator {
+    // constants
+    private static final int HUNTERS_PER_TASK = 8192;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+    // the town flags of each hunter
+    private static final int TOUGH = 1;
+    private static final int HUNTED = 2;
+    private static final int DUG = 4;
+    private static final int SHOPPED = 8; // the greedy hunter has already been to the shop in this town
+    private static final int MAX_TERRAINS = 256; // a terrain is kept in a byte, read back unsigned
+    // the greedy rules, in the order they are tried
+    private static final int HUNT = 0;
+    private static final int DIG = 1;
+    private static final int BUY_SWORD = 2;
+    private static final int BUY_NEEDED = 3;
+    private static final int BUY_SHOVEL = 4;
+    private static final int MOVE = 5;
+    private static final int TROUBLE = 6;
+
+    // instance variables
+    private final Rules[] rules;
+    private final int turnLimit;
+    private final long rootSeed;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param turnLimit The most moves a single game may take.
+     * @param rootSeed The seed every hunter's random state is derived from.
+     */
+    public BatchSimulator(int turnLimit, long rootSeed) {
+        this(turnLimit, rootSeed, ForkJoinPool.commonPool());
+    }
+
+    public BatchSimulator(int turnLimit, long rootSeed, ForkJoinPool pool) {
+        this.turnLimit = turnLimit;
+        this.rootSeed = rootSeed;
+        this.pool = pool;
+        rules = new Rules[GameMode.count()];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = new Rules(GameMode.byIndex(i));
+        }
+    }
+
+    public static void main(String[] args) {
+        long hunters = (args.length > 0) ? Long.parseLong(args[0]) : 10_000_000;
+        int turnLimit = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime();
+
+        BatchSimulator simulator = new BatchSimulator(turnLimit, seed);
+        System.out.println("Simulating " + hunters + " greedy hunters in batches (seed " + seed + ")...");
+        SimulationReport report = simulator.run(hunters);
+        System.out.print(report.infoString());
+        System.out.printf("%.1f million hunter-turns/s%n", report.getTotalTurns() / (report.getElapsedNanos() / 1e3));
+    }
+
+    /**
+     * Plays a batch of games, one per hunter.
+     *
+     * @param hunters How many hunters to play.
+     * @return The merged results of every game.
+     */
+    public SimulationReport run(long hunters) {
+        long start = System.nanoTime();
+        SimulationReport report = pool.invoke(new BatchTask(0, hunters));
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Turns a splitmix state into the number between 0 and 1 it stands for, the same way SplittableRandom does.
+     */
+    private static double toDouble(long seed) {
+        return (GameRandom.mix64(seed) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Splits a range of hunters in half until it is small enough to play as one batch per mode.
+     */
+    private class BatchTask extends RecursiveTask<SimulationReport> {
+        private long from;
+        private long to;
+
+        BatchTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationReport compute() {
+            if (to - from <= HUNTERS_PER_TASK) {
+                SimulationReport report = new SimulationReport();
+                for (int mode = 0; mode < rules.length; mode++) {
+                    // the hunters of this range that play this mode: from + offset, then every rules.length-th
+                    long first = from + Math.floorMod(mode - from, rules.length);
+                    if (first < to) {
+                        Batch batch = new Batch(rules[mode], first, (int) ((to - first - 1) / rules.length + 1));
+                        batch.play();
+                        batch.report(report);
+                    }
+                }
+                return report;
+            }
+            long middle = (from + to) >>> 1;
+            BatchTask left = new BatchTask(from, middle);
+            left.fork();
+            SimulationReport report = new BatchTask(middle, to).compute();
+            report.merge(left.join());
+            return report;
+        }
+    }
+
+    /**
+     * Everything about a mode a turn needs, laid out as arrays indexed by the numbers the batch stores.
+     */
+    private static final class Rules {
+        private final String name;
+        private final int startingGold;
+        private final boolean samurai;
+        private final double toughness;
+        private final AliasTable terrainOdds;
+        private final AliasTable treasureOdds;
+        private final AliasTable sleepyBrawlOdds;
+        private final AliasTable toughBrawlOdds;
+        private final AliasTable itemBreakOdds;
+        private final long[] neededMasks; // by terrain
+        private final int[] neededItems;  // by terrain
+        private final long[] huntMasks;   // by hunt outcome; 0 when it turns up nothing
+        private final int[] prices;       // by item
+        private final long[] itemMasks;   // by item
+        private final long allTreasures;
+        private final int shovelItem;
+        private final long shovelMask;
+        private final int swordItem;
+        private final long swordMask;
+
+        Rules(GameMode mode) {
+            name = mode.getName();
+            startingGold = mode.getStartingGold();
+            samurai = mode.isSamurai();
+            toughness = mode.getToughness();
+            terrainOdds = mode.getTerrainOdds();
+            treasureOdds = mode.getTreasureOdds();
+            sleepyBrawlOdds = mode.getBrawlOdds(false);
+            toughBrawlOdds = mode.getBrawlOdds(true);
+            itemBreakOdds = mode.getItemBreakOdds();
+
+            if (Town.getTerrainCount() > MAX_TERRAINS) {
+                throw new IllegalStateException("The batch simulator keeps a terrain in a byte, so it can't play "
+                        + Town.getTerrainCount() + " terrains (at most " + MAX_TERRAINS + ")");
+            }
+            neededMasks = new long[Town.getTerrainCount()];
+            neededItems = new int[neededMasks.length];
+            for (int i = 0; i < neededMasks.length; i++) {
+                Item needed = Town.getTerrainByIndex(i).getNeededItemType();
+                neededMasks[i] = needed.getMask();
+                neededItems[i] = needed.getId();
+            }
+            huntMasks = new long[treasureOdds.size()];
+            for (int i = 0; i < huntMasks.length; i++) {
+                Treasure treasure = Treasure.named(Town.getTreasureName(i));
+                huntMasks[i] = (treasure == null) ? 0 : treasure.getMask();
+            }
+            PriceTable table = PriceTable.standard(mode.getMarkdown());
+            prices = new int[Item.count()];
+            itemMasks = new long[prices.length];
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] = table.getBuyPrice(Item.byId(i));
+                itemMasks[i] = Item.byId(i).getMask();
+            }
+            allTreasures = Treasure.allMask();
+            shovelItem = Item.SHOVEL.getId();
+            shovelMask = Item.SHOVEL.getMask();
+            swordItem = Item.SWORD.getId();
+            swordMask = Item.SWORD.getMask();
+        }
+    }
+
+    /**
+     * A batch of hunters all playing the same mode, one array entry each.
+     */
+    private final class Batch {
+        // the hunters
+        private final int[] gold;
+        private final long[] kit;
+        private final long[] treasures;
+        private final byte[] terrain;
+        private final byte[] flags;
+        private final long[] seeds;
+        // what the greedy strategy remembers about its last trip to the shop
+        private final byte[] wanted;
+        private final int[] goldWhenShopped;
+        // the tallies for the report
+        private final int[] turns;
+        private final int[] brawlsWon;
+        private final int[] brawlsLost;
+        private final int[] itemsLost;
+
+        private final Rules mode;
+        private final int[] playing; // the hunters still in the game
+        private int playingCount;
+
+        /**
+         * @param mode The rules every hunter in the batch plays by.
+         * @param first The index in the whole run of the first hunter.
+         * @param count How many hunters there are; the hunters are every GameMode.count()-th from the first.
+         */
+        Batch(Rules mode, long first, int count) {
+            this.mode = mode;
+            gold = new int[count];
+            kit = new long[count];
+            treasures = new long[count];
+            terrain = new byte[count];
+            flags = new byte[count];
+            seeds = new long[count];
+            wanted = new byte[count];
+            goldWhenShopped = new int[count];
+            turns = new int[count];
+            brawlsWon = new int[count];
+            brawlsLost = new int[count];
+            itemsLost = new int[count];
+            playing = new int[count];
+            for (int i = 0; i < count; i++) {
+                seeds[i] = GameRandom.mix64(rootSeed + GameRandom.mix64(first + (long) i * rules.length));
+                gold[i] = mode.startingGold;
+                arrive(i);
+                playing[playingCount++] = i;
+            }
+        }
+
+        /**
+         * Gives every hunter a turn, over and over, until every game is over.
+         */
+        void play() {
+            for (int turn = 0; turn < turnLimit && playingCount > 0; turn++) {
+                int kept = 0;
+                for (int p = 0; p < playingCount; p++) {
+                    int i = playing[p];
+                    takeTurn(i);
+                    turns[i]++;
+                    if (gold[i] > 0 && treasures[i] != mode.allTreasures) {
+                        playing[kept++] = i;
+                    }
+                }
+                playingCount = kept;
+            }
+        }
+
+        /**
+         * One greedy move, chosen in the same order as GreedyStrategy.chooseMove().<p>
+         * The hunter is read into locals first and written back once at the end, and nearly every move needs a roll,
+         * so one is always made up front. The move is picked before anything changes: a refused trip to the shop
+         * changes nothing in GreedyStrategy either, so only the trip actually taken is remembered.<p>
+         * Picking every rule into one bit each without branching was tried too, and was slower: the branches are
+         * mostly guessed right, since most turns are a hunt, a move or a brawl.
+         */
+        private void takeTurn(int i) {
+            int g = gold[i];
+            long has = kit[i];
+            int flag = flags[i];
+            int t = terrain[i] & 0xFF;
+            long needed = mode.neededMasks[t];
+            int neededItem = mode.neededItems[t];
+            int wantedItem = wanted[i];
+            boolean hasNeeded = (has & needed) != 0;
+            boolean hasShovel = (has & mode.shovelMask) != 0;
+            boolean refused = (flag & SHOPPED) != 0 & g <= goldWhenShopped[i];
+            long seed = seeds[i] + GOLDEN_GAMMA;
+            double roll = toDouble(seed);
+
+            int move;
+            if ((flag & HUNTED) == 0) {
+                move = HUNT;
+            } else if (hasShovel && (flag & DUG) == 0) {
+                move = DIG;
+            } else if (mode.samurai && (has & mode.swordMask) == 0 && !(refused && wantedItem == mode.swordItem)) {
+                move = BUY_SWORD;
+            } else if (!hasNeeded && !(refused && wantedItem == neededItem)) {
+                move = BUY_NEEDED;
+            } else if (!hasShovel && hasNeeded && !(refused && wantedItem == mode.shovelItem)) {
+                move = BUY_SHOVEL;
+            } else if (hasNeeded) {
+                move = MOVE;
+            } else {
+                move = TROUBLE;
+            }
+            int item = (move == BUY_SWORD) ? mode.swordItem : (move == BUY_SHOVEL) ? mode.shovelItem : neededItem;
+            switch (move) {
+                case HUNT:
+                    treasures[i] |= mode.huntMasks[mode.treasureOdds.sample(roll)];
+                    flag |= HUNTED;
+                    break;
+                case DIG:
+                    flag |= DUG;
+                    if (roll < TreasureHunter.DIG_CHANCE) {
+                        seed += GOLDEN_GAMMA;
+                        g += (int) (toDouble(seed) * TreasureHunter.MAX_DIG_GOLD) + 1;
+                    }
+                    break;
+                case BUY_SWORD:
+                case BUY_NEEDED:
+                case BUY_SHOVEL:
+                    // like GreedyStrategy.shouldShopFor(), remember what was asked for and with how much gold
+                    flag |= SHOPPED;
+                    wanted[i] = (byte) item;
+                    goldWhenShopped[i] = g;
+                    // a samurai with a sword pays nothing, and nobody spends their last gold piece
+                    int price = (mode.samurai && (has & mode.swordMask) != 0) ? 0 : mode.prices[item];
+                    if (price < g) {
+                        g -= price;
+                        has |= mode.itemMasks[item];
+                    }
+                    break;
+                case MOVE:
+                    if (mode.itemBreakOdds.sample(roll) == GameMode.ITEM_BROKEN) {
+                        has &= ~needed;
+                        itemsLost[i]++;
+                    }
+                    seed += GOLDEN_GAMMA;
+                    terrain[i] = (byte) mode.terrainOdds.sample(toDouble(seed));
+                    seed += GOLDEN_GAMMA;
+                    flag = (toDouble(seed) < mode.toughness) ? TOUGH : 0;
+                    break;
+                default:
+                    int outcome = (((flag & TOUGH) != 0) ? mode.toughBrawlOdds : mode.sleepyBrawlOdds).sample(roll);
+                    if (outcome != 0) {
+                        int goldDiff = (outcome - 1) % Town.MAX_BRAWL_GOLD + 1;
+                        if ((has & mode.swordMask) != 0 || outcome <= Town.MAX_BRAWL_GOLD) {
+                            g += goldDiff;
+                            brawlsWon[i]++;
+                        } else {
+                            g = Math.max(0, g - goldDiff);
+                            brawlsLost[i]++;
+                        }
+                    }
+                    break;
+            }
+            gold[i] = g;
+            kit[i] = has;
+            flags[i] = (byte) flag;
+            seeds[i] = seed;
+        }
+
+        /**
+         * Puts a new hunter in their first town.
+         */
+        private void arrive(int i) {
+            long seed = seeds[i] + GOLDEN_GAMMA;
+            terrain[i] = (byte) mode.terrainOdds.sample(toDouble(seed));
+            seed += GOLDEN_GAMMA;
+            flags[i] = (byte) ((toDouble(seed) < mode.toughness) ? TOUGH : 0);
+            seeds[i] = seed;
+        }
+
+        /**
+         * Adds every hunter's game to a report.
+         */
+        void report(SimulationReport report) {
+            for (int i = 0; i < gold.length; i++) {
+                report.record(new GameResult(mode.name, treasures[i] == mode.allTreasures, turns[i], gold[i],
+                        Long.bitCount(treasures[i]), brawlsWon[i], brawlsLost[i], itemsLost[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+/**
+ * Benchmarks Class<br /><br />
+ * Measures the hot paths of a turn: shop listings and prices, the hunter's inventory, brawls,
+ * whole headless turns of TreasureHunter.processChoice(), and publishing an event into an EventRing.<p>
+ * Each benchmark is warmed up first and then run for a fixed time. It reports throughput, time per operation
+ * and how many bytes were allocated per operation and per second, read from the JVM's per-thread allocation counter.<p>
+ * The script benchmarks play a whole game from a script of a million commands, once read straight through a Scanner
+ * and once through an InputPipeline; there one operation is one line of the script. The pipeline reads on a thread of
+ * its own, so their bytes come from the counter of every thread in the JVM instead, which also counts that thread.<p>
+ * Usage: java Benchmarks [filter] [seconds per benchmark]
+ */
+
+public class Benchmarks {
+    // constants
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int BATCH = 10000;
+    private static final int SCRIPT_COMMANDS = 1_000_000;
+    // menu and shop commands that never end the game: explore, hunt, dig without a shovel, a typo,
+    // and offering the shop boots the hunter doesn't have
+    private static final String[] SCRIPT_TURN = {"e", "h", "d", "zz", "s", "boots", "n"};
+
+    // static variables
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static volatile Object sink; // stops the JIT from throwing the measured work away
+    private static long checksum;
+
+    /**
+     * A piece of work being measured. Each call does one operation.
+     */
+    interface Operation {
+        Object run();
+    }
+
+    /**
+     * Opens a script for reading.
+     */
+    interface ScriptReader {
+        LineSource open(Path script) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String filter = (args.length > 0) ? args[0] : "";
+        double seconds = (args.length > 1) ? Double.parseDouble(args[1]) : 1;
+
+        Shop shop = new Shop(0.5, false, NullRenderer.INSTANCE, new GreedyStrategy("n"));
+
+        Hunter fullKit = new Hunter("bench", 100);
+        for (int i = 0; i < Item.count(); i++) {
+            fullKit.buyItem(Item.byId(i), 0);
+        }
+        for (int i = 0; i < Treasure.count(); i++) {
+            fullKit.addTreasure(Treasure.byId(i));
+        }
+
+        GameRandom random = new GameRandom(42);
+        Town town = new Town(shop, GameMode.NORMAL, random);
+        Hunter brawler = new Hunter("bench", 100);
+        town.hunterArrives(brawler);
+
+        TreasureHunter game = new TreasureHunter(new GreedyStrategy("n"), NullRenderer.INSTANCE, new GameRandom(42));
+        game.start();
+        String[] turns = {"e", "l", "h", "d", "m"};
+        int[] turn = {0};
+
+        System.out.printf("%-28s %14s %10s %10s %12s%n", "benchmark", "ops/s", "ns/op", "B/op", "MB/s alloc");
+        measure("shop.inventory", filter, seconds, () -> shop.inventory());
+        measure("shop.getCostOfItem", filter, seconds, () -> shop.getCostOfItem("boots"));
+        measure("hunter.getInventory", filter, seconds, () -> fullKit.getInventory());
+        measure("hunter.getTreasures", filter, seconds, () -> fullKit.getTreasures());
+        measure("hunter.hasItemInKit", filter, seconds, () -> fullKit.hasItemInKit("sword"));
+        measure("town.lookForTrouble", filter, seconds, () -> {
+            if (brawler.getGold() < 20) {
+                brawler.changeGold(100);
+            }
+            town.lookForTrouble(NullRenderer.INSTANCE);
+            return brawler;
+        });
+        measure("treasureHunter.processChoice", filter, seconds, () -> {
+            game.processChoice(turns[turn[0]]);
+            turn[0] = (turn[0] + 1) % turns.length;
+            if (game.getHunter().getGold() < 20) {
+                game.getHunter().changeGold(100);
+            }
+            return game;
+        });
+        if ("eventRing.publish".contains(filter)) {
+            long[] handled = {0};
+            try (EventRing events = new EventRing()) {
+                events.subscribe("count", event -> handled[0] += event.getAmount());
+                GameListener publisher = events.publisher();
+                measure("eventRing.publish", filter, seconds, () -> {
+                    publisher.goldChanged(1, 2);
+                    return publisher;
+                });
+            }
+            checksum += handled[0];
+        }
+        if ("script.scanner".contains(filter) || "script.inputPipeline".contains(filter)) {
+            Path script = writeScript(SCRIPT_COMMANDS);
+            try {
+                measureScript("script.scanner", filter, script, path -> new Scanner(path, StandardCharsets.UTF_8)::nextLine);
+                measureScript("script.inputPipeline", filter, script, path -> InputPipeline.fromFile(path));
+            } finally {
+                Files.delete(script);
+            }
+        }
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+    /**
+     * Warms up and then times one benchmark, printing a line of results.
+     */
+    private static void measure(String name, String filter, double seconds, Operation operation) {
+        if (!name.contains(filter)) {
+            return;
+        }
+        long budget = (long) (seconds * 1e9);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runFor(operation, budget / 2);
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long ops = runFor(operation, budget);
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        System.out.printf("%-28s %14.0f %10.1f %10.1f %12.1f%n", name, ops / (elapsed / 1e9), (double) elapsed / ops,
+                (double) bytes / ops, bytes / (elapsed / 1e9) / (1024 * 1024));
+    }
+
+    /**
+     * Runs the operation in batches until the time is up.
+     *
+     * @return How many operations were run.
+     */
+    private static long runFor(Operation operation, long nanos) {
+        long ops = 0;
+        long end = System.nanoTime() + nanos;
+        do {
+            for (int i = 0; i < BATCH; i++) {
+                Object result = operation.run();
+                checksum += System.identityHashCode(result) & 1;
+            }
+            ops += BATCH;
+        } while (System.nanoTime() < end);
+        sink = checksum;
+        return ops;
+    }
+
+    /**
+     * Writes a script that names the hunter, picks normal mode, plays the given number of commands and exits.
+     */
+    private static Path writeScript(int commands) throws IOException {
+        Path script = Files.createTempFile("treasure-hunter", ".script");
+        try (BufferedWriter out = Files.newBufferedWriter(script, StandardCharsets.UTF_8)) {
+            out.write("bench\nn\n");
+            for (int i = 0; i < commands; i++) {
+                out.write(SCRIPT_TURN[i % SCRIPT_TURN.length]);
+                out.newLine();
+            }
+            out.write("x\n");
+        }
+        return script;
+    }
+
+    /**
+     * Plays the script once to warm up and once more to time it, printing a line of results per line of script.
+     */
+    private static void measureScript(String name, String filter, Path script, ScriptReader reader) throws IOException {
+        if (!name.contains(filter)) {
+            return;
+        }
+        playScript(script, reader); // warm up
+
+        long bytesBefore = THREADS.getTotalThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long lines = playScript(script, reader);
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getTotalThreadAllocatedBytes() - bytesBefore;
+
+        System.out.printf("%-28s %14.0f %10.1f %10.1f %12.1f%n", name, lines / (elapsed / 1e9), (double) elapsed / lines,
+                (double) bytes / lines, bytes / (elapsed / 1e9) / (1024 * 1024));
+    }
+
+    /**
+     * @return How many lines of the script were read.
+     */
+    private static long playScript(Path script, ScriptReader reader) throws IOException {
+        LineSource source = reader.open(script);
+        long[] lines = {0};
+        LineSource counted = () -> {
+            lines[0]++;
+            return source.nextLine();
+        };
+        TreasureHunter game = new TreasureHunter(new ConsoleStrategy(counted), NullRenderer.INSTANCE, new GameRandom(42));
+        GameResult result = game.play();
+        checksum += result.getTurns();
+        if (source instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) source).close();
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+        return lines[0];
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CommandRegistry Class<br /><br />
+ * A table from the keys a player types to the code that handles them, used for the main menu and the shop.<p>
+ * Single-letter keys (all of the menu) are looked up in an array indexed by the character, so dispatching
+ * a turn never compares strings; longer keys go through a map. A key that isn't registered goes to the fallback.<p>
+ * Commands registered with a description make up the menu, in the order they were registered.<p>
+ * The commands are handed the object they act on, so one registry can be built once and shared by every game.
+ *
+ * @param <T> What the commands act on, e.g. a TreasureHunter game or a Shop.
+ */
+
+public final class CommandRegistry<T> {
+    /**
+     * The code run for a key.
+     */
+    public interface Command<T> {
+        /**
+         * @param target What the command acts on.
+         * @param key The key that was typed.
+         */
+        void run(T target, String key);
+    }
+
+    // constants
+    private static final int ASCII = 128;
+
+    // instance variables
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Command<T>[] byLetter = new Command[ASCII];
+    private final Map<String, Command<T>> byKey = new HashMap<>();
+    private final List<String> descriptions = new ArrayList<>();
+    private final List<String> menu = Collections.unmodifiableList(descriptions);
+    private Command<T> fallback = (target, key) -> {};
+
+    /**
+     * Adds a command that isn't shown in the menu.
+     *
+     * @param key What the player types, in lower case.
+     * @param command What to do.
+     * @return this registry, so registrations can be chained.
+     */
+    public CommandRegistry<T> register(String key, Command<T> command) {
+        if (key.length() == 1 && key.charAt(0) < ASCII) {
+            byLetter[key.charAt(0)] = command;
+        } else {
+            byKey.put(key, command);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a command with a line in the menu.
+     *
+     * @param key What the player types, in lower case.
+     * @param description The line shown in the menu, e.g. "(H)unt for treasure.".
+     * @param command What to do.
+     * @return this registry, so registrations can be chained.
+     */
+    public CommandRegistry<T> register(String key, String description, Command<T> command) {
+        descriptions.add(description);
+        return register(key, command);
+    }
+
+    /**
+     * @param command What to do with a key that isn't registered.
+     * @return this registry, so registrations can be chained.
+     */
+    public CommandRegistry<T> otherwise(Command<T> command) {
+        fallback = command;
+        return this;
+    }
+
+    /**
+     * Runs the command registered for a key, or the fallback.
+     *
+     * @param target What the command acts on.
+     * @param key What the player typed, in lower case.
+     */
+    public void dispatch(T target, String key) {
+        Command<T> command = null;
+        if (key.length() == 1 && key.charAt(0) < ASCII) {
+            command = byLetter[key.charAt(0)];
+        } else if (!byKey.isEmpty()) {
+            command = byKey.get(key);
+        }
+        if (command == null) {
+            command = fallback;
+        }
+        command.run(target, key);
+    }
+
+    /**
+     * @return The menu lines, in the order they were registered.
+     */
+    public List<String> getDescriptions() {
+        return menu;
+    }
+}
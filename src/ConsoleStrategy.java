@@ -0,0 +1,53 @@
+import java.util.Scanner;
+
+/**
+ * The ConsoleStrategy is the human player: every decision is a line typed into the console,
+ * or read from a script or a connection through a LineSource.
+ */
+
+public class ConsoleStrategy implements Strategy {
+    // instance variables
+    private LineSource input;
+
+    /**
+     * @param scanner The Scanner the player's answers are read from.
+     */
+    public ConsoleStrategy(Scanner scanner) {
+        this(scanner::nextLine);
+    }
+
+    /**
+     * @param input Where the player's answers are read from, e.g. an InputPipeline.
+     */
+    public ConsoleStrategy(LineSource input) {
+        this.input = input;
+    }
+
+    public String chooseName() {
+        return nextLine();
+    }
+
+    public String chooseMode() {
+        return nextLine();
+    }
+
+    public String chooseMove(TreasureHunter game) {
+        return nextLine();
+    }
+
+    public String chooseItemToBuy(Hunter customer) {
+        return nextLine();
+    }
+
+    public String chooseItemToSell(Hunter customer) {
+        return nextLine();
+    }
+
+    public boolean confirm(Hunter customer, String item, int price) {
+        return nextLine().equals("y");
+    }
+
+    private String nextLine() {
+        return input.nextLine().toLowerCase();
+    }
+}
@@ -0,0 +1,461 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * Content Class<br /><br />
+ * The items, prices, terrains, treasures and modes a game is made of, read from a content file
+ * (see content.txt for the format) instead of being written into the code.<p>
+ * The file is parsed once, the first time anything asks for it, and compiled into plain arrays indexed by number:
+ * item i is Item.byId(i), terrain i is Town.getTerrainByIndex(i), and a terrain refers to the item that
+ * crosses it by that number. So nothing at runtime looks anything up by name.<p>
+ * The standard content is content.txt next to the classes; running with -Dtreasurehunter.content=file
+ * loads another file instead, so new content needs no Java at all.
+ */
+
+public final class Content {
+    // constants
+    public static final String PROPERTY = "treasurehunter.content";
+    private static final String RESOURCE = "/content.txt";
+
+    // static variables
+    private static Content standard;
+
+    // items, indexed by item id
+    private final String[] itemNames;
+    private final int[] itemPrices;
+    private final boolean[] samuraiOnly;
+
+    // terrains
+    private final String[] terrainNames;
+    private final int[] terrainItems;
+    private final double[] terrainWeights;
+
+    // treasures, indexed by treasure id, then every outcome of a hunt, treasures first
+    private final String[] treasureNames;
+    private final String[] huntNames;
+    private final double[] huntWeights;
+
+    // modes
+    private final String[] modeNames;
+    private final String[] modeAnswers;
+    private final double[] markdowns;
+    private final double[] toughnesses;
+    private final int[] startingGold;
+    private final boolean[] itemProtection;
+    private final boolean[] samuraiModes;
+
+    // odds
+    private final double toughTroubleChance;
+    private final double sleepyTroubleChance;
+    private final double itemBreakChance;
+
+    private Content(Parser parser) {
+        itemNames = parser.itemNames.toArray(new String[0]);
+        itemPrices = toInts(parser.itemPrices);
+        samuraiOnly = toBooleans(parser.samuraiOnly);
+        terrainNames = parser.terrainNames.toArray(new String[0]);
+        terrainItems = toInts(parser.terrainItems);
+        terrainWeights = toDoubles(parser.terrainWeights);
+        treasureNames = parser.treasureNames.toArray(new String[0]);
+        List<String> hunts = new ArrayList<>(parser.treasureNames);
+        hunts.addAll(parser.nothingNames);
+        huntNames = hunts.toArray(new String[0]);
+        List<Double> weights = new ArrayList<>(parser.treasureWeights);
+        weights.addAll(parser.nothingWeights);
+        huntWeights = toDoubles(weights);
+        modeNames = parser.modeNames.toArray(new String[0]);
+        modeAnswers = parser.modeAnswers.toArray(new String[0]);
+        markdowns = toDoubles(parser.markdowns);
+        toughnesses = toDoubles(parser.toughnesses);
+        startingGold = toInts(parser.startingGold);
+        itemProtection = toBooleans(parser.itemProtection);
+        samuraiModes = toBooleans(parser.samuraiModes);
+        toughTroubleChance = parser.odds[0];
+        sleepyTroubleChance = parser.odds[1];
+        itemBreakChance = parser.odds[2];
+    }
+
+    /**
+     * @return The content the game is played with, read the first time it is asked for.
+     * @throws UncheckedIOException if the content file can't be read or has a mistake in it.
+     */
+    public static synchronized Content standard() {
+        if (standard == null) {
+            try {
+                standard = loadStandard();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return standard;
+    }
+
+    private static Content loadStandard() throws IOException {
+        String file = System.getProperty(PROPERTY);
+        if (file != null) {
+            return load(Path.of(file));
+        }
+        InputStream in = Content.class.getResourceAsStream(RESOURCE);
+        if (in == null) {
+            throw new IOException("content.txt is missing from the class path; copy it next to the classes or set -D" + PROPERTY);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return parse(reader, "content.txt");
+        }
+    }
+
+    /**
+     * Reads a content file.
+     *
+     * @param path The file to read.
+     * @return The content.
+     */
+    public static Content load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader, path.toString());
+        }
+    }
+
+    /**
+     * Parses content in the format of content.txt.
+     *
+     * @param reader Where the content comes from.
+     * @param source The name of the file, for error messages.
+     * @return The content.
+     * @throws IOException if it can't be read, or has a mistake in it (the message gives the line).
+     */
+    public static Content parse(Reader reader, String source) throws IOException {
+        Parser parser = new Parser();
+        BufferedReader lines = new BufferedReader(reader);
+        int number = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                parser.line(words(line));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(source + ", line " + number + ": " + e.getMessage());
+            }
+        }
+        try {
+            parser.finish();
+        } catch (IllegalArgumentException e) {
+            throw new IOException(source + ": " + e.getMessage());
+        }
+        return new Content(parser);
+    }
+
+    /**
+     * Splits a line at its spaces and tabs; a StringTokenizer, unlike a regular expression, costs nothing to set up.
+     */
+    private static String[] words(String line) {
+        StringTokenizer tokens = new StringTokenizer(line);
+        String[] words = new String[tokens.countTokens()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = tokens.nextToken();
+        }
+        return words;
+    }
+
+    // accessors
+    public int getItemCount() {
+        return itemNames.length;
+    }
+
+    public String getItemName(int item) {
+        return itemNames[item];
+    }
+
+    public int getItemPrice(int item) {
+        return itemPrices[item];
+    }
+
+    /**
+     * @return true if the item is only for sale in samurai mode.
+     */
+    public boolean isSamuraiOnly(int item) {
+        return samuraiOnly[item];
+    }
+
+    public int getTerrainCount() {
+        return terrainNames.length;
+    }
+
+    public String getTerrainName(int terrain) {
+        return terrainNames[terrain];
+    }
+
+    /**
+     * @return The id of the item needed to cross the terrain.
+     */
+    public int getTerrainItem(int terrain) {
+        return terrainItems[terrain];
+    }
+
+    /**
+     * @return A copy of how likely each terrain is, next to the others.
+     */
+    public double[] getTerrainWeights() {
+        return terrainWeights.clone();
+    }
+
+    public int getTreasureCount() {
+        return treasureNames.length;
+    }
+
+    public String getTreasureName(int treasure) {
+        return treasureNames[treasure];
+    }
+
+    /**
+     * @return How many things a hunt can turn up: every treasure, then every kind of nothing.
+     */
+    public int getHuntCount() {
+        return huntNames.length;
+    }
+
+    /**
+     * @param outcome Between 0 and getHuntCount() - 1; below getTreasureCount() it is also the treasure id.
+     * @return What a hunt with that outcome turns up.
+     */
+    public String getHuntName(int outcome) {
+        return huntNames[outcome];
+    }
+
+    /**
+     * @return A copy of how likely each outcome of a hunt is, next to the others.
+     */
+    public double[] getHuntWeights() {
+        return huntWeights.clone();
+    }
+
+    public int getModeCount() {
+        return modeNames.length;
+    }
+
+    public String getModeName(int mode) {
+        return modeNames[mode];
+    }
+
+    public String getModeAnswer(int mode) {
+        return modeAnswers[mode];
+    }
+
+    public double getMarkdown(int mode) {
+        return markdowns[mode];
+    }
+
+    public double getToughness(int mode) {
+        return toughnesses[mode];
+    }
+
+    public int getStartingGold(int mode) {
+        return startingGold[mode];
+    }
+
+    public boolean hasItemProtection(int mode) {
+        return itemProtection[mode];
+    }
+
+    public boolean isSamurai(int mode) {
+        return samuraiModes[mode];
+    }
+
+    public double getToughTroubleChance() {
+        return toughTroubleChance;
+    }
+
+    public double getSleepyTroubleChance() {
+        return sleepyTroubleChance;
+    }
+
+    public double getItemBreakChance() {
+        return itemBreakChance;
+    }
+
+    private static int[] toInts(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private static double[] toDoubles(List<Double> list) {
+        double[] array = new double[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private static boolean[] toBooleans(List<Boolean> list) {
+        boolean[] array = new boolean[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Collects the lines of a content file, checking each one as it comes.
+     * Terrains may come before the items they need, so those are matched up at the end.
+     */
+    private static class Parser {
+        private List<String> itemNames = new ArrayList<>();
+        private List<Integer> itemPrices = new ArrayList<>();
+        private List<Boolean> samuraiOnly = new ArrayList<>();
+        private Map<String, Integer> itemIds = new HashMap<>();
+        private List<String> terrainNames = new ArrayList<>();
+        private List<String> terrainItemNames = new ArrayList<>();
+        private List<Integer> terrainItems = new ArrayList<>();
+        private List<Double> terrainWeights = new ArrayList<>();
+        private List<String> treasureNames = new ArrayList<>();
+        private List<Double> treasureWeights = new ArrayList<>();
+        private List<String> nothingNames = new ArrayList<>();
+        private List<Double> nothingWeights = new ArrayList<>();
+        private List<String> modeNames = new ArrayList<>();
+        private List<String> modeAnswers = new ArrayList<>();
+        private List<Double> markdowns = new ArrayList<>();
+        private List<Double> toughnesses = new ArrayList<>();
+        private List<Integer> startingGold = new ArrayList<>();
+        private List<Boolean> itemProtection = new ArrayList<>();
+        private List<Boolean> samuraiModes = new ArrayList<>();
+        private double[] odds;
+
+        void line(String[] words) {
+            switch (words[0]) {
+                case "item":
+                    expect(words, 3, 4);
+                    String item = words[1].toLowerCase();
+                    if (itemIds.containsKey(item)) {
+                        throw new IllegalArgumentException("item " + item + " is listed twice");
+                    }
+                    if (itemNames.size() == Long.SIZE) {
+                        throw new IllegalArgumentException("there can be at most " + Long.SIZE + " items");
+                    }
+                    itemIds.put(item, itemNames.size());
+                    itemNames.add(item);
+                    itemPrices.add(whole(words[2]));
+                    samuraiOnly.add(flags(words, 3, "samurai")[0]);
+                    break;
+                case "terrain":
+                    expect(words, 3, 4);
+                    terrainNames.add(words[1]);
+                    terrainItemNames.add(words[2].toLowerCase());
+                    terrainWeights.add((words.length > 3) ? weight(words[3]) : 1);
+                    break;
+                case "treasure":
+                case "nothing":
+                    expect(words, 2, 3);
+                    String treasure = words[1].toLowerCase();
+                    if (treasureNames.contains(treasure) || nothingNames.contains(treasure)) {
+                        throw new IllegalArgumentException(treasure + " is listed twice");
+                    }
+                    boolean real = words[0].equals("treasure");
+                    if (real && treasureNames.size() == Long.SIZE) {
+                        throw new IllegalArgumentException("there can be at most " + Long.SIZE + " treasures");
+                    }
+                    (real ? treasureNames : nothingNames).add(treasure);
+                    (real ? treasureWeights : nothingWeights).add((words.length > 2) ? weight(words[2]) : 1);
+                    break;
+                case "mode":
+                    expect(words, 6, 8);
+                    if (modeNames.contains(words[1]) || modeAnswers.contains(words[2])) {
+                        throw new IllegalArgumentException("mode " + words[1] + " or its answer is listed twice");
+                    }
+                    modeNames.add(words[1]);
+                    modeAnswers.add(words[2].toLowerCase());
+                    markdowns.add(chance(words[3]));
+                    toughnesses.add(chance(words[4]));
+                    startingGold.add(whole(words[5]));
+                    boolean[] flags = flags(words, 6, "protection", "samurai");
+                    itemProtection.add(flags[0]);
+                    samuraiModes.add(flags[1]);
+                    break;
+                case "odds":
+                    expect(words, 4, 4);
+                    odds = new double[]{chance(words[1]), chance(words[2]), chance(words[3])};
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown kind of line: " + words[0]);
+            }
+        }
+
+        void finish() {
+            for (int i = 0; i < terrainNames.size(); i++) {
+                Integer item = itemIds.get(terrainItemNames.get(i));
+                if (item == null) {
+                    throw new IllegalArgumentException("terrain " + terrainNames.get(i) + " needs "
+                            + terrainItemNames.get(i) + ", which isn't an item");
+                }
+                terrainItems.add(item);
+            }
+            if (terrainNames.isEmpty() || treasureNames.isEmpty() || modeNames.isEmpty()) {
+                throw new IllegalArgumentException("there must be at least one terrain, treasure and mode");
+            }
+            if (odds == null) {
+                throw new IllegalArgumentException("the odds line is missing");
+            }
+        }
+
+        private static void expect(String[] words, int min, int max) {
+            if (words.length < min || words.length > max) {
+                throw new IllegalArgumentException(words[0] + " takes " + (min - 1)
+                        + ((max > min) ? " to " + (max - 1) : "") + " values");
+            }
+        }
+
+        private static boolean[] flags(String[] words, int from, String... names) {
+            boolean[] set = new boolean[names.length];
+            for (int i = from; i < words.length; i++) {
+                int flag = List.of(names).indexOf(words[i]);
+                if (flag < 0) {
+                    throw new IllegalArgumentException("unknown flag: " + words[i]);
+                }
+                set[flag] = true;
+            }
+            return set;
+        }
+
+        private static int whole(String word) {
+            int value = Integer.parseInt(word); // NumberFormatException is an IllegalArgumentException
+            if (value < 0) {
+                throw new IllegalArgumentException("expected a number of at least 0: " + word);
+            }
+            return value;
+        }
+
+        private static double weight(String word) {
+            double value = Double.parseDouble(word);
+            if (!(value >= 0) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("expected a weight of at least 0: " + word);
+            }
+            return value;
+        }
+
+        private static double chance(String word) {
+            double value = weight(word);
+            if (value > 1) {
+                throw new IllegalArgumentException("expected a chance between 0 and 1: " + word);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * DifficultySweep Class<br /><br />
+ * Tries out many difficulty settings to find the ones where a bot wins about as often as wanted.<p>
+ * A setting is a markdown, a toughness and an amount of starting gold, played as a GameMode of its own with the
+ * standard odds for everything else. The settings are either a grid of every combination or a random sample.
+ * Every setting is played with the same dice, game for game, so the differences between them come from the settings.<p>
+ * Rather than playing a fixed number of games each, a setting is played in rounds that grow by half each time, and
+ * after every round its win rate is given a confidence interval. It stops as soon as the interval is wholly inside
+ * the target band (it hits), or wholly outside it (too easy or too hard), or when it reaches the most games allowed.
+ * Looking again after every round would make a fixed-confidence interval wrong more often than it says, so round k
+ * is only allowed a 1/(k(k+1)) share of the error; the shares add up to the error asked for, however many rounds
+ * there are. The interval is Wilson's, which stays narrow for win rates near 0 or 1, with its width taken from the
+ * normal distribution's tail bound so it never claims more than it knows.<p>
+ * Settings are spread over every core with fork-join, one setting to a task. At the end they are ranked: those that
+ * hit the target first, closest first, then the rest.<p>
+ * Usage: java DifficultySweep [target] [tolerance] [grid|settings] [greedy|random] [confidence] [maxGames] [seed]
+ */
+
+public class DifficultySweep {
+    // constants
+    private static final double[] GRID_MARKDOWNS = {0.25, 0.5, 1};
+    private static final double[] GRID_TOUGHNESSES = {0, 0.1, 0.25, 0.4, 0.6, 0.75};
+    private static final int[] GRID_GOLD = {10, 20, 30, 40, 60};
+    private static final int FIRST_ROUND = 64;
+    private static final int TURN_LIMIT = 500;
+
+    // instance variables
+    private final double target;
+    private final double tolerance;
+    private final double confidence;
+    private final long maxGames;
+    private final boolean randomBot;
+    private final long rootSeed;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param target The win rate wanted.
+     * @param tolerance How far from the target a win rate may be and still hit it.
+     * @param confidence How sure to be of every verdict, for example 0.95.
+     * @param maxGames The most games to play with one setting.
+     * @param randomBot true to play RandomStrategy, which sells and so feels the markdown; false for GreedyStrategy.
+     * @param rootSeed The seed every game's dice are derived from.
+     */
+    public DifficultySweep(double target, double tolerance, double confidence, long maxGames, boolean randomBot, long rootSeed) {
+        this(target, tolerance, confidence, maxGames, randomBot, rootSeed, ForkJoinPool.commonPool());
+    }
+
+    public DifficultySweep(double target, double tolerance, double confidence, long maxGames, boolean randomBot, long rootSeed,
+                           ForkJoinPool pool) {
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("The confidence must be between 0 and 1");
+        }
+        this.target = target;
+        this.tolerance = tolerance;
+        this.confidence = confidence;
+        this.maxGames = maxGames;
+        this.randomBot = randomBot;
+        this.rootSeed = rootSeed;
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) {
+        double target = (args.length > 0) ? Double.parseDouble(args[0]) : 0.5;
+        double tolerance = (args.length > 1) ? Double.parseDouble(args[1]) : 0.05;
+        String which = (args.length > 2) ? args[2] : "grid";
+        boolean randomBot = args.length > 3 && args[3].equals("random");
+        double confidence = (args.length > 4) ? Double.parseDouble(args[4]) : 0.95;
+        long maxGames = (args.length > 5) ? Long.parseLong(args[5]) : 20000;
+        long seed = (args.length > 6) ? Long.parseLong(args[6]) : System.nanoTime();
+
+        Setting[] settings = which.equals("grid") ? grid() : sample(Integer.parseInt(which), new GameRandom(seed));
+        DifficultySweep sweep = new DifficultySweep(target, tolerance, confidence, maxGames, randomBot, seed);
+        System.out.printf("Sweeping %d settings with the %s strategy for a %.0f%% +/- %.0f%% win rate, %.0f%% sure (seed %d)...%n",
+                settings.length, randomBot ? "random" : "greedy", 100 * target, 100 * tolerance, 100 * confidence, seed);
+        long start = System.nanoTime();
+        Setting[] ranked = sweep.run(settings);
+        System.out.print(sweep.table(ranked, System.nanoTime() - start));
+    }
+
+    /**
+     * @return Every combination of the grid's markdowns, toughnesses and starting gold.
+     */
+    public static Setting[] grid() {
+        List<Setting> settings = new ArrayList<>();
+        for (double markdown : GRID_MARKDOWNS) {
+            for (double toughness : GRID_TOUGHNESSES) {
+                for (int gold : GRID_GOLD) {
+                    settings.add(new Setting(markdown, toughness, gold));
+                }
+            }
+        }
+        return settings.toArray(new Setting[0]);
+    }
+
+    /**
+     * @param count How many settings to make.
+     * @param random Where the settings come from.
+     * @return Settings spread at random over the same ranges as the grid.
+     */
+    public static Setting[] sample(int count, GameRandom random) {
+        Setting[] settings = new Setting[count];
+        for (int i = 0; i < count; i++) {
+            double markdown = Math.round((0.1 + 0.9 * random.nextDouble()) * 100) / 100.0;
+            double toughness = Math.round(0.9 * random.nextDouble() * 100) / 100.0;
+            int gold = 5 + random.nextInt(56);
+            settings[i] = new Setting(markdown, toughness, gold);
+        }
+        return settings;
+    }
+
+    /**
+     * Plays every setting until its verdict is known, spread over every core.
+     *
+     * @param settings The settings to try; their results are filled in.
+     * @return The same settings, ranked.
+     */
+    public Setting[] run(Setting[] settings) {
+        pool.invoke(new SweepTask(settings, 0, settings.length));
+        Setting[] ranked = settings.clone();
+        Arrays.sort(ranked, Comparator.comparing((Setting s) -> s.getVerdict() != Verdict.HITS)
+                .thenComparingDouble(s -> Math.abs(s.getWinRate() - target)));
+        return ranked;
+    }
+
+    /**
+     * Plays one setting in growing rounds until its interval says where it stands.
+     */
+    void play(Setting setting) {
+        GameMode mode = setting.toMode();
+        int round = FIRST_ROUND;
+        for (int look = 1; setting.games < maxGames; look++) {
+            long end = Math.min(maxGames, setting.games + round);
+            for (long game = setting.games; game < end; game++) {
+                if (playGame(mode, game)) {
+                    setting.wins++;
+                }
+            }
+            setting.games = end;
+            setting.looks = look;
+            // round k may be wrong with probability (1 - confidence) / (k(k+1)); over every round that adds up to 1 - confidence
+            double error = (1 - confidence) / ((double) look * (look + 1));
+            setting.interval(Math.sqrt(2 * Math.log(2 / error)));
+            setting.verdict = verdict(setting.low, setting.high);
+            if (setting.verdict != Verdict.UNSURE) {
+                return;
+            }
+            round += round / 2;
+        }
+    }
+
+    private boolean playGame(GameMode mode, long gameIndex) {
+        // the same dice as SimulationEngine; the answer to the mode question is ignored once the mode is set
+        GameRandom random = GameRandom.forGame(rootSeed, gameIndex);
+        GameRandom botRandom = random.split();
+        Strategy strategy = randomBot ? new RandomStrategy(mode.getAnswer(), botRandom) : new GreedyStrategy(mode.getAnswer());
+        TreasureHunter game = new TreasureHunter(strategy, NullRenderer.INSTANCE, random);
+        game.setMode(mode);
+        game.setTurnLimit(TURN_LIMIT);
+        return game.play().isWon();
+    }
+
+    private Verdict verdict(double low, double high) {
+        if (low >= target - tolerance && high <= target + tolerance) {
+            return Verdict.HITS;
+        }
+        if (low > target + tolerance) {
+            return Verdict.TOO_EASY;
+        }
+        if (high < target - tolerance) {
+            return Verdict.TOO_HARD;
+        }
+        return Verdict.UNSURE;
+    }
+
+    /**
+     * @param ranked The settings after run().
+     * @param elapsedNanos How long the sweep took.
+     * @return A printable table of the settings, best first, and how many games the early stopping saved.
+     */
+    public String table(Setting[] ranked, long elapsedNanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%4s %8s %9s %5s %8s %7s %17s  %s%n", "rank", "markdown", "toughness", "gold", "games", "won", "interval", "verdict"));
+        long games = 0;
+        int hits = 0;
+        for (int i = 0; i < ranked.length; i++) {
+            Setting s = ranked[i];
+            games += s.games;
+            if (s.getVerdict() == Verdict.HITS) {
+                hits++;
+            }
+            sb.append(String.format("%4d %8.2f %9.2f %5d %8d %6.2f%% [%6.2f%%, %6.2f%%]  %s%n", i + 1, s.markdown, s.toughness,
+                    s.startingGold, s.games, 100 * s.getWinRate(), 100 * s.low, 100 * s.high, s.getVerdict().getLabel()));
+        }
+        long budget = maxGames * ranked.length;
+        sb.append(String.format("%d of %d settings hit the target. %d games in %.2f s, %.1f%% of the %d a fixed %d per setting would take.%n",
+                hits, ranked.length, games, elapsedNanos / 1e9, 100.0 * games / budget, budget, maxGames));
+        return sb.toString();
+    }
+
+    /**
+     * What the interval of a setting says about it.
+     */
+    public enum Verdict {
+        HITS("hits the target"),
+        TOO_EASY("too easy"),
+        TOO_HARD("too hard"),
+        UNSURE("unsure after the most games");
+
+        private final String label;
+
+        Verdict(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * One combination of difficulty knobs, and once played, what came of it.
+     */
+    public static final class Setting {
+        private final double markdown;
+        private final double toughness;
+        private final int startingGold;
+        private long games;
+        private long wins;
+        private int looks;
+        private double low;
+        private double high = 1;
+        private Verdict verdict = Verdict.UNSURE;
+
+        public Setting(double markdown, double toughness, int startingGold) {
+            this.markdown = markdown;
+            this.toughness = toughness;
+            this.startingGold = startingGold;
+        }
+
+        /**
+         * @return A mode with these knobs and the standard odds.
+         */
+        public GameMode toMode() {
+            return new GameMode("sweep", markdown, toughness, startingGold, false, false);
+        }
+
+        /**
+         * Works out the Wilson interval of the win rate so far.
+         *
+         * @param z How many standard errors wide each side is.
+         */
+        private void interval(double z) {
+            double n = games;
+            double p = (double) wins / games;
+            double z2 = z * z;
+            double centre = (p + z2 / (2 * n)) / (1 + z2 / n);
+            double half = z * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / (1 + z2 / n);
+            low = Math.max(0, centre - half);
+            high = Math.min(1, centre + half);
+        }
+
+        // accessors
+        public double getMarkdown() {
+            return markdown;
+        }
+
+        public double getToughness() {
+            return toughness;
+        }
+
+        public int getStartingGold() {
+            return startingGold;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public double getWinRate() {
+            return (games == 0) ? 0 : (double) wins / games;
+        }
+
+        /**
+         * @return How many times the interval was worked out before the setting stopped.
+         */
+        public int getLooks() {
+            return looks;
+        }
+
+        public double getLow() {
+            return low;
+        }
+
+        public double getHigh() {
+            return high;
+        }
+
+        public Verdict getVerdict() {
+            return verdict;
+        }
+    }
+
+    /**
+     * Splits a range of settings in half until there is one left to play.
+     */
+    private class SweepTask extends RecursiveTask<Void> {
+        private Setting[] settings;
+        private int from;
+        private int to;
+
+        SweepTask(Setting[] settings, int from, int to) {
+            this.settings = settings;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    play(settings[from]);
+                }
+                return null;
+            }
+            int middle = (from + to) >>> 1;
+            SweepTask left = new SweepTask(settings, from, middle);
+            left.fork();
+            new SweepTask(settings, middle, to).compute();
+            left.join();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventJournal Class<br /><br />
+ * An append-only file recording everything that happens in any number of games.<p>
+ * Opening a journal never throws away what earlier runs wrote: it adds to the end of the file, starting with a
+ * RUN_STARTED record that says when the run began. Game ids are only unique within one run (a batch index, or 0
+ * for a single game), so a game is found by its run and its id; the runs are numbered by JournalReplayer in the
+ * order their headers appear. The only bytes ever removed are a record cut off by a run that crashed in the middle
+ * of a write, which would otherwise run into the first record of the next run.<p>
+ * Each game writes through its own Recorder, which encodes events as small varint records in a private buffer
+ * and hands the whole buffer over once per turn. The journal gathers these batches in memory and writes and
+ * forces them to disk together (group commit): when its buffer fills up, every commit interval, and on close.<p>
+ * Every record is: the record type (one byte), the game id (varint), then the fields of that type. A RUN_STARTED
+ * record has game id 0 and one field, the time the run started in milliseconds since 1970 (varint).
+ */
+
+public class EventJournal implements AutoCloseable {
+    // record types
+    public static final byte GAME_STARTED = 1;
+    public static final byte COMMAND = 2;
+    public static final byte RANDOM_DOUBLE = 3;
+    public static final byte RANDOM_INT = 4;
+    public static final byte GOLD_CHANGED = 5;
+    public static final byte ITEM_BOUGHT = 6;
+    public static final byte ITEM_SOLD = 7;
+    public static final byte ITEM_LOST = 8;
+    public static final byte TREASURE_FOUND = 9;
+    public static final byte TOWN_ENTERED = 10;
+    public static final byte GAME_ENDED = 11;
+    public static final byte RANDOM_LONG = 12;
+    public static final byte RUN_STARTED = 13;
+
+    // constants
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int RECORDER_BYTES = 4096;
+
+    // instance variables
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private boolean dirty; // written to the channel but not yet forced to disk
+    private ScheduledExecutorService committer;
+
+    /**
+     * Opens a journal, adding a new run to the end of the file if it already exists.
+     *
+     * @param path The journal file.
+     * @param commitIntervalMillis How often pending records are forced to disk, or 0 to only do it when asked.
+     * @throws IOException if the file can't be opened.
+     */
+    public EventJournal(Path path, long commitIntervalMillis) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() > 0) {
+            channel.truncate(new JournalReplayer(path).wholeRecordBytes()); // only ever cuts a record torn by a crash
+        }
+        buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buffer.put(RUN_STARTED);
+        Varint.writeUnsigned(buffer, 0);
+        Varint.writeUnsigned(buffer, System.currentTimeMillis());
+        if (commitIntervalMillis > 0) {
+            committer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "journal-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            committer.scheduleWithFixedDelay(this::commitQuietly, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @param gameId The id the game's records are tagged with.
+     * @return A listener that records one game into this journal.
+     */
+    public Recorder recorder(long gameId) {
+        return new Recorder(gameId);
+    }
+
+    /**
+     * Adds a batch of encoded records to the journal.
+     *
+     * @param records The records, between position and limit.
+     */
+    public synchronized void append(ByteBuffer records) throws IOException {
+        if (records.remaining() > buffer.remaining()) {
+            drain();
+        }
+        if (records.remaining() > buffer.capacity()) {
+            write(records); // too big to gather, so it goes straight out
+        } else {
+            buffer.put(records);
+        }
+    }
+
+    /**
+     * Writes everything appended so far and forces it to disk.
+     */
+    public synchronized void commit() throws IOException {
+        drain();
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (committer != null) {
+            committer.shutdownNow();
+        }
+        synchronized (this) {
+            commit();
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer records) throws IOException {
+        while (records.hasRemaining()) {
+            channel.write(records);
+            dirty = true;
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException e) {
+            System.err.println("Journal commit failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the events of one game. Used only by the thread playing that game.
+     */
+    public class Recorder implements GameListener {
+        private long gameId;
+        private ByteBuffer records;
+
+        Recorder(long gameId) {
+            this.gameId = gameId;
+            records = ByteBuffer.allocate(RECORDER_BYTES);
+        }
+
+        public void gameStarted(Hunter hunter, String mode) {
+            begin(GAME_STARTED, Varint.maxStringBytes(hunter.getHunterName()) + Varint.maxStringBytes(mode) + 3 * Varint.MAX_BYTES);
+            Varint.writeString(records, hunter.getHunterName());
+            Varint.writeString(records, mode);
+            Varint.writeUnsigned(records, hunter.getGold());
+            Varint.writeUnsigned(records, hunter.getKitMask());
+            Varint.writeUnsigned(records, hunter.getTreasureMask());
+        }
+
+        public void commandProcessed(String command) {
+            // the previous turn is complete, so this is when its records are handed to the journal
+            handOver();
+            begin(COMMAND, Varint.maxStringBytes(command));
+            Varint.writeString(records, command);
+        }
+
+        public void randomDouble(double value) {
+            begin(RANDOM_DOUBLE, Long.BYTES);
+            records.putLong(Double.doubleToRawLongBits(value));
+        }
+
+        public void randomInt(int bound, int value) {
+            begin(RANDOM_INT, 2 * Varint.MAX_BYTES);
+            Varint.writeUnsigned(records, bound);
+            Varint.writeUnsigned(records, value);
+        }
+
+        public void randomLong(long value) {
+            begin(RANDOM_LONG, Long.BYTES);
+            records.putLong(value);
+        }
+
+        public void goldChanged(int delta, int gold) {
+            begin(GOLD_CHANGED, 2 * Varint.MAX_BYTES);
+            Varint.writeSigned(records, delta);
+            Varint.writeUnsigned(records, gold);
+        }
+
+        public void itemBought(Item item, int price) {
+            begin(ITEM_BOUGHT, 2 * Varint.MAX_BYTES);
+            Varint.writeUnsigned(records, item.getId());
+            Varint.writeUnsigned(records, price);
+        }
+
+        public void itemSold(Item item, int price) {
+            begin(ITEM_SOLD, 2 * Varint.MAX_BYTES);
+            Varint.writeUnsigned(records, item.getId());
+            Varint.writeUnsigned(records, price);
+        }
+
+        public void itemLost(Item item) {
+            begin(ITEM_LOST, Varint.MAX_BYTES);
+            Varint.writeUnsigned(records, item.getId());
+        }
+
+        public void treasureFound(Treasure treasure) {
+            begin(TREASURE_FOUND, Varint.MAX_BYTES);
+            Varint.writeUnsigned(records, treasure.getId());
+        }
+
+        public void townEntered(Terrain terrain, boolean toughTown) {
+            begin(TOWN_ENTERED, Varint.maxStringBytes(terrain.getTerrainName()) + Varint.MAX_BYTES + 1);
+            Varint.writeString(records, terrain.getTerrainName());
+            Varint.writeUnsigned(records, terrain.getNeededItemType().getId());
+            records.put((byte) (toughTown ? 1 : 0));
+        }
+
+        public void gameEnded(boolean won) {
+            begin(GAME_ENDED, 1);
+            records.put((byte) (won ? 1 : 0));
+            handOver();
+        }
+
+        /**
+         * Starts a record, first making sure there is room for it.
+         *
+         * @param type The record type.
+         * @param maxBytes The most bytes the record's fields can take.
+         */
+        private void begin(byte type, int maxBytes) {
+            int needed = 1 + Varint.MAX_BYTES + maxBytes;
+            if (records.remaining() < needed) {
+                handOver();
+                if (records.capacity() < needed) {
+                    records = ByteBuffer.allocate(needed);
+                }
+            }
+            records.put(type);
+            Varint.writeUnsigned(records, gameId);
+        }
+
+        private void handOver() {
+            if (records.position() == 0) {
+                return;
+            }
+            records.flip();
+            try {
+                append(records);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write to the journal", e);
+            }
+            records.clear();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * EventRing Class<br /><br />
+ * Hands the events of one game from the thread playing it to any number of subscribers, each on a thread of its own,
+ * so that journaling, logging and the like happen off the turn path.<p>
+ * The ring is a fixed array of GameEvents made up front. The game thread is the only producer: it fills in the next
+ * slot and then moves the published cursor past it. Each subscriber follows the cursor at its own pace and
+ * records how far it has got. The producer only reuses a slot once every subscriber is past it, so a slow
+ * subscriber holds the game back rather than losing events, and nothing is locked or allocated on the way.<p>
+ * Waiting, on either side, spins a little and then parks, since a turn comes along rarely compared to the time
+ * it takes to handle its events. After a millisecond of 50 microsecond parks, a subscriber parks twice as long
+ * each time, up to 10 milliseconds, so one waiting on a player at the keyboard wakes up a hundred times a second rather than twenty
+ * thousand, while one that has just gone quiet still picks up the next turn quickly. The game thread only ever
+ * waits for a subscriber that is busy handling events, so it keeps to short parks.<p>
+ * Subscribe before the game starts; a subscriber only sees events published after it joined.
+ * The ring's publisher() is a GameListener, so a game is connected with TreasureHunter.setListener().
+ */
+
+public final class EventRing implements AutoCloseable {
+    // constants
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int SPINS = 100;
+    private static final long MIN_PARK_NANOS = 50_000;
+    private static final long MAX_PARK_NANOS = 10_000_000;
+    private static final int SHORT_PARKS = 20;   // about a millisecond of short parks before they start to grow
+    private static final int PARK_DOUBLINGS = 8; // 50 us << 8 is past MAX_PARK_NANOS
+
+    // instance variables
+    private final GameEvent[] slots;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(-1); // the last published sequence
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private volatile Subscriber[] gates = new Subscriber[0];
+    private volatile boolean closed;
+    private long next = -1;      // the last claimed sequence; only touched by the producer
+    private long cachedGate = -1; // the slowest subscriber, as last seen by the producer
+
+    public EventRing() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity How many events can be waiting at once; rounded up to a power of two.
+     */
+    public EventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new GameEvent[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new GameEvent();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Something that handles the events of a ring on its own thread.
+     */
+    public interface Handler {
+        /**
+         * @param event The next event. It is only valid until this method returns.
+         */
+        void onEvent(GameEvent event);
+    }
+
+    /**
+     * Starts a thread that passes every event from now on to a handler.
+     *
+     * @param name The name of the subscriber, used for its thread.
+     * @param handler What to do with each event.
+     */
+    public synchronized void subscribe(String name, Handler handler) {
+        if (closed) {
+            throw new IllegalStateException("The ring is closed");
+        }
+        Subscriber subscriber = new Subscriber(name, handler, cursor.get());
+        subscribers.add(subscriber);
+        gates = subscribers.toArray(new Subscriber[0]);
+        subscriber.thread.start();
+    }
+
+    /**
+     * Starts a thread that makes every call the game makes on the ring on a listener too,
+     * so an EventJournal.Recorder, say, writes the journal without holding up the game.
+     *
+     * @param name The name of the subscriber, used for its thread.
+     * @param listener The listener to call.
+     */
+    public void subscribe(String name, GameListener listener) {
+        subscribe(name, (Handler) event -> event.replay(listener));
+    }
+
+    /**
+     * @return The listener the game publishes its events through. Only one thread may use it.
+     */
+    public GameListener publisher() {
+        return new Publisher();
+    }
+
+    /**
+     * @return How many events have been published so far.
+     */
+    public long getPublished() {
+        return cursor.get() + 1;
+    }
+
+    /**
+     * Waits for every subscriber to handle every event published so far, then stops them.
+     *
+     * @throws IllegalStateException if a handler threw an exception, with the first one as its cause.
+     */
+    @Override
+    public void close() {
+        Subscriber[] all;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            all = gates;
+        }
+        RuntimeException failure = null;
+        for (Subscriber subscriber : all) {
+            LockSupport.unpark(subscriber.thread);
+            try {
+                subscriber.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while draining the event ring", e);
+            }
+            if (failure == null && subscriber.failure != null) {
+                failure = new IllegalStateException("Subscriber " + subscriber.name + " failed", subscriber.failure);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Claims the next slot, first waiting for the slowest subscriber to be done with it.
+     */
+    private GameEvent claim() {
+        long sequence = next + 1;
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint > cachedGate) {
+            int idle = 0;
+            while (wrapPoint > (cachedGate = slowest(sequence - 1))) {
+                idle = pause(idle, 0);
+            }
+        }
+        next = sequence;
+        GameEvent event = slots[(int) sequence & mask];
+        event.setSequence(sequence);
+        return event;
+    }
+
+    private void publish() {
+        cursor.lazySet(next); // the writes to the slot happen before the cursor moves past it
+    }
+
+    private long slowest(long fallback) {
+        long slowest = fallback;
+        for (Subscriber subscriber : gates) {
+            slowest = Math.min(slowest, subscriber.sequence.get());
+        }
+        return slowest;
+    }
+
+    /**
+     * Waits a little longer each time nothing has changed.
+     *
+     * @param idle How many times in a row the caller has waited already.
+     * @param maxDoublings How many times the park may double.
+     * @return The number to pass next time.
+     */
+    private static int pause(int idle, int maxDoublings) {
+        if (idle < SPINS) {
+            Thread.onSpinWait();
+            return idle + 1;
+        }
+        int doublings = Math.max(0, idle - SPINS - SHORT_PARKS);
+        LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << Math.min(doublings, maxDoublings)));
+        return (doublings < maxDoublings) ? idle + 1 : idle;
+    }
+
+    /**
+     * One subscriber: its handler, its thread, and how far it has got.
+     */
+    private class Subscriber implements Runnable {
+        private final String name;
+        private final Handler handler;
+        private final AtomicLong sequence; // the last event handled
+        private final Thread thread;
+        private volatile Throwable failure;
+
+        Subscriber(String name, Handler handler, long start) {
+            this.name = name;
+            this.handler = handler;
+            sequence = new AtomicLong(start);
+            thread = new Thread(this, "events-" + name);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long done = sequence.get();
+            int idle = 0;
+            while (true) {
+                boolean last = closed; // read before the cursor, so nothing published before close is missed
+                long available = cursor.get();
+                if (available > done) {
+                    for (long s = done + 1; s <= available; s++) {
+                        handle(slots[(int) s & mask]);
+                    }
+                    done = available;
+                    sequence.lazySet(done);
+                    idle = 0;
+                } else if (last) {
+                    return;
+                } else {
+                    idle = pause(idle, PARK_DOUBLINGS);
+                }
+            }
+        }
+
+        private void handle(GameEvent event) {
+            if (failure != null) {
+                return; // a broken subscriber keeps up, so it never holds the game back
+            }
+            try {
+                handler.onEvent(event);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Turns the game's listener calls into events. Used only by the game thread.
+     */
+    private class Publisher implements GameListener {
+        public void gameStarted(Hunter hunter, String mode) {
+            claim().gameStarted(hunter, mode);
+            publish();
+        }
+
+        public void commandProcessed(String command) {
+            claim().command(command);
+            publish();
+        }
+
+        public void randomDouble(double value) {
+            claim().randomDouble(value);
+            publish();
+        }
+
+        public void randomInt(int bound, int value) {
+            claim().randomInt(bound, value);
+            publish();
+        }
+
+        public void randomLong(long value) {
+            claim().randomLong(value);
+            publish();
+        }
+
+        public void goldChanged(int delta, int gold) {
+            claim().goldChanged(delta, gold);
+            publish();
+        }
+
+        public void itemBought(Item item, int price) {
+            claim().itemTraded(GameEvent.Type.ITEM_BOUGHT, item, price);
+            publish();
+        }
+
+        public void itemSold(Item item, int price) {
+            claim().itemTraded(GameEvent.Type.ITEM_SOLD, item, price);
+            publish();
+        }
+
+        public void itemLost(Item item) {
+            claim().itemLost(item);
+            publish();
+        }
+
+        public void brawlResolved(int goldDiff, boolean won) {
+            claim().brawlResolved(goldDiff, won);
+            publish();
+        }
+
+        public void treasureFound(Treasure treasure) {
+            claim().treasureFound(treasure);
+            publish();
+        }
+
+        public void townEntered(Terrain terrain, boolean toughTown) {
+            claim().townEntered(terrain, toughTown);
+            publish();
+        }
+
+        public void gameEnded(boolean won) {
+            claim().gameEnded(won);
+            publish();
+        }
+    }
+}
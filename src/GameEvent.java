@@ -0,0 +1,252 @@
+/**
+ * GameEvent Class<br /><br />
+ * One thing that happened in a game, as a slot of an EventRing.<p>
+ * The ring makes all its events up front and the game thread fills them in again and again, so publishing
+ * an event never allocates. An event holds one GameListener call: its type says which, and only the fields
+ * that call needs are meaningful. Everything it points to (items, treasures, terrains, names) never changes,
+ * so a subscriber on another thread sees exactly what the game saw.<p>
+ * A subscriber must not keep an event after handling it: the slot is reused once every subscriber has moved on.
+ */
+
+public final class GameEvent {
+    /**
+     * Which GameListener call an event stands for.
+     */
+    public enum Type {
+        GAME_STARTED, COMMAND, RANDOM_DOUBLE, RANDOM_INT, RANDOM_LONG, GOLD_CHANGED, ITEM_BOUGHT, ITEM_SOLD, ITEM_LOST,
+        BRAWL_RESOLVED, TREASURE_FOUND, TOWN_ENTERED, GAME_ENDED
+    }
+
+    // instance variables
+    private long sequence;
+    private Type type;
+    private int amount;     // gold changed, price, gold won or lost, random bound
+    private int gold;       // gold after the change, random int drawn
+    private long kitMask;   // at the start of the game
+    private long treasureMask;
+    private double roll;
+    private long number;    // random long drawn
+    private boolean flag;   // won, tough town
+    private String text;    // command, hunter name
+    private String mode;
+    private Item item;
+    private Treasure treasure;
+    private Terrain terrain;
+
+    GameEvent() {
+    }
+
+    void gameStarted(Hunter hunter, String mode) {
+        type = Type.GAME_STARTED;
+        text = hunter.getHunterName();
+        this.mode = mode;
+        gold = hunter.getGold();
+        kitMask = hunter.getKitMask();
+        treasureMask = hunter.getTreasureMask();
+    }
+
+    void command(String command) {
+        type = Type.COMMAND;
+        text = command;
+    }
+
+    void randomDouble(double value) {
+        type = Type.RANDOM_DOUBLE;
+        roll = value;
+    }
+
+    void randomInt(int bound, int value) {
+        type = Type.RANDOM_INT;
+        amount = bound;
+        gold = value;
+    }
+
+    void randomLong(long value) {
+        type = Type.RANDOM_LONG;
+        number = value;
+    }
+
+    void goldChanged(int delta, int gold) {
+        type = Type.GOLD_CHANGED;
+        amount = delta;
+        this.gold = gold;
+    }
+
+    void itemTraded(Type type, Item item, int price) {
+        this.type = type;
+        this.item = item;
+        amount = price;
+    }
+
+    void itemLost(Item item) {
+        type = Type.ITEM_LOST;
+        this.item = item;
+    }
+
+    void brawlResolved(int goldDiff, boolean won) {
+        type = Type.BRAWL_RESOLVED;
+        amount = goldDiff;
+        flag = won;
+    }
+
+    void treasureFound(Treasure treasure) {
+        type = Type.TREASURE_FOUND;
+        this.treasure = treasure;
+    }
+
+    void townEntered(Terrain terrain, boolean toughTown) {
+        type = Type.TOWN_ENTERED;
+        this.terrain = terrain;
+        flag = toughTown;
+    }
+
+    void gameEnded(boolean won) {
+        type = Type.GAME_ENDED;
+        flag = won;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Makes the same call on a listener that the game made on the ring, so any GameListener can subscribe.<p>
+     * A GAME_STARTED event hands the listener a copy of the hunter as they were when the game started.
+     *
+     * @param listener The listener to call.
+     */
+    public void replay(GameListener listener) {
+        switch (type) {
+            case GAME_STARTED:
+                listener.gameStarted(new Hunter(text, gold, kitMask, treasureMask), mode);
+                break;
+            case COMMAND:
+                listener.commandProcessed(text);
+                break;
+            case RANDOM_DOUBLE:
+                listener.randomDouble(roll);
+                break;
+            case RANDOM_INT:
+                listener.randomInt(amount, gold);
+                break;
+            case RANDOM_LONG:
+                listener.randomLong(number);
+                break;
+            case GOLD_CHANGED:
+                listener.goldChanged(amount, gold);
+                break;
+            case ITEM_BOUGHT:
+                listener.itemBought(item, amount);
+                break;
+            case ITEM_SOLD:
+                listener.itemSold(item, amount);
+                break;
+            case ITEM_LOST:
+                listener.itemLost(item);
+                break;
+            case BRAWL_RESOLVED:
+                listener.brawlResolved(amount, flag);
+                break;
+            case TREASURE_FOUND:
+                listener.treasureFound(treasure);
+                break;
+            case TOWN_ENTERED:
+                listener.townEntered(terrain, flag);
+                break;
+            case GAME_ENDED:
+                listener.gameEnded(flag);
+                break;
+        }
+    }
+
+    // accessors
+    /**
+     * @return The position of the event in the ring's stream, counting from 0.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The gold gained (GOLD_CHANGED, negative for a loss), the price (ITEM_BOUGHT, ITEM_SOLD),
+     *         or the gold won or lost (BRAWL_RESOLVED).
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return The hunter's gold after a GOLD_CHANGED, or at the start of the game.
+     */
+    public int getGold() {
+        return gold;
+    }
+
+    /**
+     * @return The command (COMMAND) or the hunter's name (GAME_STARTED).
+     */
+    public String getText() {
+        return text;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public Treasure getTreasure() {
+        return treasure;
+    }
+
+    public Terrain getTerrain() {
+        return terrain;
+    }
+
+    /**
+     * @return Whether the game (GAME_ENDED) or the brawl (BRAWL_RESOLVED) was won, or the town is tough (TOWN_ENTERED).
+     */
+    public boolean isFlag() {
+        return flag;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case GAME_STARTED:
+                return text + " starts a " + mode + " game with " + gold + " gold";
+            case COMMAND:
+                return "command " + text;
+            case RANDOM_DOUBLE:
+                return "rolled " + roll;
+            case RANDOM_INT:
+                return "rolled " + gold + " of " + amount;
+            case RANDOM_LONG:
+                return "drew " + number;
+            case GOLD_CHANGED:
+                return ((amount >= 0) ? "+" : "") + amount + " gold, " + gold + " in all";
+            case ITEM_BOUGHT:
+                return "bought " + item + " for " + amount + " gold";
+            case ITEM_SOLD:
+                return "sold " + item + " for " + amount + " gold";
+            case ITEM_LOST:
+                return "lost " + item;
+            case BRAWL_RESOLVED:
+                return (flag ? "won " : "lost ") + amount + " gold in a brawl";
+            case TREASURE_FOUND:
+                return "found " + treasure;
+            case TOWN_ENTERED:
+                return "entered a " + (flag ? "tough" : "sleepy") + " town surrounded by " + terrain.getTerrainName();
+            case GAME_ENDED:
+                return flag ? "won the game" : "game over";
+            default:
+                return type.name();
+        }
+    }
+}
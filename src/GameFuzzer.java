@@ -0,0 +1,449 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * GameFuzzer Class<br /><br />
+ * Plays huge numbers of headless games from made-up scripts of typed answers, looking for a game that breaks its rules.<p>
+ * A case is a seed for the dice and a script: the lines a player would type, the name and the mode first, then menu
+ * letters, item names for the shop and y/n answers, fed through a ConsoleStrategy exactly as a --script file would be.
+ * Half the scripts are typed at random, typos and all; the other half lean towards moves that get somewhere
+ * (hunting, moving, buying the items that exist), so games last long enough to reach the later rules.<p>
+ * Before every move the game is checked:
+ * gold is never negative, the kit and the treasures only hold things that exist, the inventory lists nothing twice,
+ * only a samurai carries a sword, and a game that should have ended (no gold, or every treasure) hasn't asked
+ * for another move. When a game does end, it must be for a reason: the player left, ran out of gold, found every
+ * treasure, or hit the turn limit, and it is won exactly when every treasure was found. An exception is a failure too.<p>
+ * A failing script is shrunk with delta debugging: chunks of lines are dropped for as long as the same check still
+ * fails, until no single line can go. The result is written out as a script that TreasureHunterRunner plays
+ * with --seed and --script.<p>
+ * Cases are spread over every core with fork-join, each with dice derived from one root seed.<p>
+ * Usage: java GameFuzzer [cases] [seed] [reproDirectory]
+ */
+
+public class GameFuzzer {
+    // constants
+    private static final int CASES_PER_TASK = 512;
+    private static final int TURN_LIMIT = 1000;
+    private static final int MAX_SCRIPT_LINES = 400;
+    private static final String[] MODE_ANSWERS = {"e", "n", "y", "s", "test", "", "Y", "hard"};
+    private static final String[] MENU = {"b", "s", "e", "m", "l", "h", "d", "x", "", "zz", "B", " h", "bs"};
+    // how often each MENU entry is typed: at random, and by a player who is trying
+    private static final AliasTable RANDOM_MENU = new AliasTable(3, 3, 3, 3, 3, 3, 3, 0.1, 1, 1, 1, 1, 1);
+    private static final AliasTable TRYING_MENU = new AliasTable(6, 1, 0.5, 4, 4, 4, 3, 0.02, 0, 0.2, 0, 0, 0);
+    private static final String[] NOT_ITEMS = {"", "dragon", "WATER", "rope ", "crown", "dust"};
+    private static final String[] ANSWERS = {"y", "n", "", "Y", "yes"};
+
+    // instance variables
+    private final long rootSeed;
+    private final ForkJoinPool pool;
+    private final String[] itemNames;
+
+    public GameFuzzer(long rootSeed) {
+        this(rootSeed, ForkJoinPool.commonPool());
+    }
+
+    public GameFuzzer(long rootSeed, ForkJoinPool pool) {
+        this.rootSeed = rootSeed;
+        this.pool = pool;
+        itemNames = new String[Item.count()];
+        for (int i = 0; i < itemNames.length; i++) {
+            itemNames[i] = Item.byId(i).getName();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        long cases = (args.length > 0) ? Long.parseLong(args[0]) : 100000;
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : System.nanoTime();
+        Path reproDirectory = (args.length > 2) ? Path.of(args[2]) : null;
+
+        GameFuzzer fuzzer = new GameFuzzer(seed);
+        System.out.println("Fuzzing " + cases + " games (seed " + seed + ")...");
+        Report report = fuzzer.run(cases);
+        System.out.print(report.infoString());
+        for (Case failure : report.getFailures()) {
+            Case shrunk = fuzzer.shrink(failure);
+            System.out.println("\n" + shrunk.getCheck() + ": " + shrunk.getMessage());
+            System.out.println("  seed " + shrunk.getSeed() + ", " + failure.getScript().length + " lines shrunk to "
+                    + shrunk.getScript().length + ":");
+            for (String line : shrunk.getScript()) {
+                System.out.println("    |" + line);
+            }
+            if (reproDirectory != null) {
+                Files.createDirectories(reproDirectory);
+                Path file = reproDirectory.resolve(shrunk.getCheck() + "-" + shrunk.getSeed() + ".txt");
+                Files.write(file, Arrays.asList(shrunk.getScript()));
+                System.out.println("  replay with: java TreasureHunterRunner --seed " + shrunk.getSeed() + " --script " + file);
+            }
+        }
+    }
+
+    /**
+     * Plays a batch of cases.
+     *
+     * @param cases How many games to play.
+     * @return What was played and the first failure of each check.
+     */
+    public Report run(long cases) {
+        long start = System.nanoTime();
+        Report report = pool.invoke(new FuzzTask(0, cases));
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Makes up the seed and the script of one case.
+     *
+     * @param caseIndex The position of the case in the batch.
+     * @return The case, not yet played.
+     */
+    public Case generate(long caseIndex) {
+        GameRandom random = GameRandom.forGame(rootSeed, caseIndex);
+        long seed = random.nextLong();
+        AliasTable menu = random.nextBoolean() ? TRYING_MENU : RANDOM_MENU;
+        int length = 2 + random.nextInt(MAX_SCRIPT_LINES);
+        String[] script = new String[length];
+        script[0] = "fuzz";
+        script[1] = MODE_ANSWERS[random.nextInt(MODE_ANSWERS.length)];
+        for (int i = 2; i < length; i++) {
+            String move = MENU[menu.sample(random)];
+            script[i] = move;
+            if ((move.equals("b") || move.equals("s")) && i + 2 < length) {
+                script[++i] = (random.nextInt(4) > 0) ? itemNames[random.nextInt(itemNames.length)]
+                        : NOT_ITEMS[random.nextInt(NOT_ITEMS.length)];
+                script[++i] = (menu == TRYING_MENU || random.nextBoolean()) ? "y" : ANSWERS[random.nextInt(ANSWERS.length)];
+            }
+        }
+        return new Case(null, null, seed, script, 0);
+    }
+
+    /**
+     * Plays one script and checks the game before every move and at the end.
+     *
+     * @param seed The seed of the game's dice.
+     * @param script The lines typed.
+     * @return The first check that failed, with the number of moves made; the check is null if the game kept to the rules.
+     */
+    public Case play(long seed, String[] script) {
+        Checker checker = new Checker(new ConsoleStrategy(new ScriptSource(script)));
+        TreasureHunter game = new TreasureHunter(checker, NullRenderer.INSTANCE, new GameRandom(seed));
+        game.setTurnLimit(TURN_LIMIT);
+        boolean ranOut = false;
+        GameResult result = null;
+        try {
+            result = game.play();
+        } catch (NoSuchElementException e) {
+            ranOut = true;
+        } catch (RuntimeException e) {
+            checker.fail("exception", e.toString());
+        } catch (InvariantViolated e) {
+            // the checker has already noted which check failed
+        }
+        if (result != null) {
+            checker.checkEnding(game, result);
+        } else if (ranOut && game.getState() != null) {
+            checker.checkState(game);
+        }
+        return new Case(checker.check, checker.message, seed, script, checker.moves);
+    }
+
+    /**
+     * Shrinks a failing script with delta debugging (ddmin): tries dropping ever smaller chunks of lines,
+     * keeping any smaller script that still fails the same check.
+     *
+     * @param failure A failure found by run().
+     * @return The same failure from the smallest script found.
+     */
+    public Case shrink(Case failure) {
+        List<String> lines = new ArrayList<>(Arrays.asList(failure.getScript()));
+        Case smallest = failure;
+        int chunks = 2;
+        while (lines.size() >= 2) {
+            int chunk = (lines.size() + chunks - 1) / chunks;
+            boolean reduced = false;
+            for (int start = 0; start < lines.size() && !reduced; start += chunk) {
+                int end = Math.min(lines.size(), start + chunk);
+                // first the chunk on its own, then everything but the chunk
+                List<String> only = lines.subList(start, end);
+                List<String> without = new ArrayList<>(lines.subList(0, start));
+                without.addAll(lines.subList(end, lines.size()));
+                for (List<String> candidate : List.of(only, without)) {
+                    Case attempt = play(failure.getSeed(), candidate.toArray(new String[0]));
+                    if (failure.getCheck().equals(attempt.getCheck())) {
+                        smallest = attempt;
+                        chunks = (candidate == only) ? 2 : Math.max(chunks - 1, 2);
+                        lines = new ArrayList<>(candidate);
+                        reduced = true;
+                        break;
+                    }
+                }
+            }
+            if (!reduced) {
+                if (chunks >= lines.size()) {
+                    break;
+                }
+                chunks = Math.min(lines.size(), chunks * 2);
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * A seed and a script, and after playing, the check it broke if any.
+     */
+    public static final class Case {
+        private final String check;
+        private final String message;
+        private final long seed;
+        private final String[] script;
+        private final int moves;
+
+        Case(String check, String message, long seed, String[] script, int moves) {
+            this.check = check;
+            this.message = message;
+            this.seed = seed;
+            this.script = script;
+            this.moves = moves;
+        }
+
+        /**
+         * @return The name of the check that failed, or null if none did.
+         */
+        public String getCheck() {
+            return check;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public String[] getScript() {
+            return script;
+        }
+
+        /**
+         * @return How many moves were made before the game ended or failed.
+         */
+        public int getMoves() {
+            return moves;
+        }
+    }
+
+    /**
+     * The tallies of a batch of cases. Each fork-join task fills in its own and they are merged at the end.
+     */
+    public static final class Report {
+        private long cases;
+        private long moves;
+        private long elapsedNanos;
+        private final List<Case> failures = new ArrayList<>();
+        private final Set<String> failedChecks = new HashSet<>();
+
+        void record(Case played) {
+            cases++;
+            moves += played.getMoves();
+            if (played.getCheck() != null && failedChecks.add(played.getCheck())) {
+                failures.add(played);
+            }
+        }
+
+        void merge(Report other) {
+            cases += other.cases;
+            moves += other.moves;
+            for (Case failure : other.failures) {
+                if (failedChecks.add(failure.getCheck())) {
+                    failures.add(failure);
+                }
+            }
+        }
+
+        public long getCases() {
+            return cases;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        /**
+         * @return The first failing case found for each check.
+         */
+        public List<Case> getFailures() {
+            return failures;
+        }
+
+        public String infoString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%d games, %d moves in %.2f s (%.0f moves/s, %.1f million a minute)%n%s%n",
+                    cases, moves, seconds, moves / seconds, moves / seconds * 60 / 1e6,
+                    failures.isEmpty() ? "every check passed" : failures.size() + " checks failed");
+        }
+    }
+
+    /**
+     * Splits a range of cases in half until it is small enough to play directly.
+     */
+    private class FuzzTask extends RecursiveTask<Report> {
+        private long from;
+        private long to;
+
+        FuzzTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Report compute() {
+            if (to - from <= CASES_PER_TASK) {
+                Report report = new Report();
+                for (long i = from; i < to; i++) {
+                    Case generated = generate(i);
+                    report.record(play(generated.getSeed(), generated.getScript()));
+                }
+                return report;
+            }
+            long middle = (from + to) >>> 1;
+            FuzzTask left = new FuzzTask(from, middle);
+            left.fork();
+            Report report = new FuzzTask(middle, to).compute();
+            report.merge(left.join());
+            return report;
+        }
+    }
+
+    /**
+     * Reads the lines of a script from an array, and runs out like a file does.
+     */
+    private static final class ScriptSource implements LineSource {
+        private final String[] lines;
+        private int next;
+
+        ScriptSource(String[] lines) {
+            this.lines = lines;
+        }
+
+        public String nextLine() {
+            if (next == lines.length) {
+                throw new NoSuchElementException("No more input");
+            }
+            return lines[next++];
+        }
+    }
+
+    /**
+     * Thrown out of the game to stop it once a check has failed. An Error, so the game's own catch blocks let it through.
+     */
+    private static final class InvariantViolated extends Error {
+        InvariantViolated() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Plays the script, checking the game every time it asks for a move.
+     */
+    private static final class Checker implements Strategy {
+        private final Strategy player;
+        private String check;
+        private String message;
+        private int moves;
+        private String lastMove = "";
+
+        Checker(Strategy player) {
+            this.player = player;
+        }
+
+        public String chooseName() {
+            return player.chooseName();
+        }
+
+        public String chooseMode() {
+            return player.chooseMode();
+        }
+
+        public String chooseMove(TreasureHunter game) {
+            checkState(game);
+            Hunter hunter = game.getHunter();
+            if (hunter.getGold() <= 0 || hunter.hasAllTreasures()) {
+                fail("ended", "asked for another move with " + hunter.getGold() + " gold and treasures " + hunter.getTreasures());
+            }
+            if (check != null) {
+                throw new InvariantViolated();
+            }
+            moves++;
+            lastMove = player.chooseMove(game).toLowerCase();
+            return lastMove;
+        }
+
+        public String chooseItemToBuy(Hunter customer) {
+            return player.chooseItemToBuy(customer);
+        }
+
+        public String chooseItemToSell(Hunter customer) {
+            return player.chooseItemToSell(customer);
+        }
+
+        public boolean confirm(Hunter customer, String item, int price) {
+            return player.confirm(customer, item, price);
+        }
+
+        void checkState(TreasureHunter game) {
+            Hunter hunter = game.getHunter();
+            long allItems = (Item.count() == Long.SIZE) ? -1L : (1L << Item.count()) - 1;
+            if (hunter.getGold() < 0) {
+                fail("gold", "the hunter has " + hunter.getGold() + " gold");
+            }
+            if ((hunter.getKitMask() & ~allItems) != 0) {
+                fail("kit", "the kit holds unknown items: " + Long.toBinaryString(hunter.getKitMask()));
+            }
+            if ((hunter.getTreasureMask() & ~Treasure.allMask()) != 0) {
+                fail("treasures", "unknown treasures: " + Long.toBinaryString(hunter.getTreasureMask()));
+            }
+            String[] inventory = hunter.getInventory().trim().split(" ");
+            if (!hunter.getInventory().isEmpty() && new HashSet<>(Arrays.asList(inventory)).size() != inventory.length) {
+                fail("duplicates", "the inventory lists an item twice: " + hunter.getInventory());
+            }
+            if (hunter.hasItem(Item.SWORD) && !game.getMode().isSamurai()) {
+                fail("sword", "a sword in " + game.getModeName() + " mode");
+            }
+            GameState state = game.getState();
+            if (state.getGold() != hunter.getGold() || state.getTurns() != game.getTurns()) {
+                fail("state", "the recorded state " + state + " is behind the game");
+            }
+        }
+
+        void checkEnding(TreasureHunter game, GameResult result) {
+            Hunter hunter = game.getHunter();
+            if (result.isWon() != (hunter.getTreasureMask() == Treasure.allMask())) {
+                fail("won", "the game says won=" + result.isWon() + " with treasures " + hunter.getTreasures());
+            }
+            boolean reason = lastMove.equals("x") || hunter.getGold() <= 0 || hunter.hasAllTreasures()
+                    || game.getTurns() >= TURN_LIMIT;
+            if (!reason) {
+                fail("ending", "the game ended after " + lastMove + " with " + hunter.getGold() + " gold on turn " + game.getTurns());
+            }
+        }
+
+        /**
+         * Notes a broken check; only the first one counts.
+         */
+        void fail(String check, String message) {
+            if (this.check == null) {
+                this.check = check;
+                this.message = message;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * GameListener Interface<br /><br />
+ * Gets told about everything that changes the state of a game: commands, dice rolls, gold, items,
+ * treasures and towns. Listeners only watch; they never change the game.<p>
+ * Every method does nothing by default, so a listener only overrides the events it cares about.
+ */
+
+public interface GameListener {
+    // a listener that ignores everything, used when nobody is listening
+    GameListener NONE = new GameListener() {
+    };
+
+    /**
+     * The hunter has been created and the difficulty chosen; nothing has happened in a town yet.
+     *
+     * @param hunter The hunter, with their starting gold and kit.
+     * @param mode "easy", "normal", "hard" or "samurai".
+     */
+    default void gameStarted(Hunter hunter, String mode) {
+    }
+
+    /**
+     * @param command The menu choice about to be processed.
+     */
+    default void commandProcessed(String command) {
+    }
+
+    /**
+     * @param value A number drawn by GameRandom.nextDouble().
+     */
+    default void randomDouble(double value) {
+    }
+
+    /**
+     * @param bound The upper limit passed to GameRandom.nextInt() or 2 for nextBoolean().
+     * @param value The number drawn.
+     */
+    default void randomInt(int bound, int value) {
+    }
+
+    /**
+     * @param value A number drawn by GameRandom.nextLong(), such as the seed of the world, or one of the two
+     *              numbers a source made by GameRandom.split() starts from.
+     */
+    default void randomLong(long value) {
+    }
+
+    /**
+     * @param delta How much the hunter's gold went up (or down, if negative).
+     * @param gold The gold the hunter has now.
+     */
+    default void goldChanged(int delta, int gold) {
+    }
+
+    /**
+     * @param item The item bought.
+     * @param price What it cost.
+     */
+    default void itemBought(Item item, int price) {
+    }
+
+    /**
+     * @param item The item sold.
+     * @param price What the shop paid.
+     */
+    default void itemSold(Item item, int price) {
+    }
+
+    /**
+     * @param item The item that broke while crossing the terrain.
+     */
+    default void itemLost(Item item) {
+    }
+
+    /**
+     * A fight found by looking for trouble is over.
+     *
+     * @param goldDiff The gold won or lost.
+     * @param won true if the hunter won it.
+     */
+    default void brawlResolved(int goldDiff, boolean won) {
+    }
+
+    /**
+     * @param treasure The treasure added to the hunter's collection.
+     */
+    default void treasureFound(Treasure treasure) {
+    }
+
+    /**
+     * @param terrain The terrain surrounding the new town.
+     * @param toughTown Whether the new town is a tough one.
+     */
+    default void townEntered(Terrain terrain, boolean toughTown) {
+    }
+
+    /**
+     * @param won true if the hunter collected every treasure.
+     */
+    default void gameEnded(boolean won) {
+    }
+}
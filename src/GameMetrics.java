@@ -0,0 +1,236 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * GameMetrics Class<br /><br />
+ * Counters and timings for every game running in this JVM: one ActionMetrics per menu letter sent to
+ * processChoice(), one each for Shop.enter(), Town.leaveTown() and Town.lookForTrouble(),
+ * and gauges for the games themselves (how many are running, how much gold their hunters hold, how they ended).
+ * A game that stops without an ending, because the player hung up or a script ran out, is counted as abandoned,
+ * so it doesn't stay in the running games and their gold forever.<p>
+ * Everything is counted with LongAdders and fixed-size histograms, so games on different threads never wait
+ * for each other. register() publishes it all as MBeans under "TreasureHunter:*", and startReporter()
+ * prints a text dump every so often for runs with nobody attached over JMX.
+ */
+
+public final class GameMetrics implements GameMetricsMBean {
+    public static final GameMetrics INSTANCE = new GameMetrics();
+
+    // constants
+    private static final String DOMAIN = "TreasureHunter";
+    private static final int LETTERS = 26;
+
+    // instance variables
+    private final ActionMetrics[] commands = new ActionMetrics[LETTERS + 1];
+    private final ActionMetrics shopEnter = new ActionMetrics("Shop.enter");
+    private final ActionMetrics leaveTown = new ActionMetrics("Town.leaveTown");
+    private final ActionMetrics lookForTrouble = new ActionMetrics("Town.lookForTrouble");
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder activeGames = new LongAdder();
+    private final LongAdder gold = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder losses = new LongAdder();
+    private final LongAdder quits = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private boolean registered;
+    private ScheduledExecutorService reporter;
+
+    private GameMetrics() {
+        for (int i = 0; i < LETTERS; i++) {
+            commands[i] = new ActionMetrics("processChoice." + (char) ('a' + i));
+        }
+        commands[LETTERS] = new ActionMetrics("processChoice.other");
+    }
+
+    /**
+     * @param choice A menu choice.
+     * @return The metrics of that letter; anything that isn't a single letter shares one entry.
+     */
+    public ActionMetrics command(String choice) {
+        if (choice.length() == 1) {
+            int letter = choice.charAt(0) - 'a';
+            if (letter >= 0 && letter < LETTERS) {
+                return commands[letter];
+            }
+        }
+        return commands[LETTERS];
+    }
+
+    public ActionMetrics shopEnter() {
+        return shopEnter;
+    }
+
+    public ActionMetrics leaveTown() {
+        return leaveTown;
+    }
+
+    public ActionMetrics lookForTrouble() {
+        return lookForTrouble;
+    }
+
+    /**
+     * A game started, or a saved one was picked up again.
+     *
+     * @param startingGold The gold its hunter has.
+     */
+    public void gameStarted(int startingGold) {
+        gamesStarted.increment();
+        activeGames.increment();
+        gold.add(startingGold);
+    }
+
+    /**
+     * @param delta Gold a hunter gained (or lost, if negative).
+     */
+    public void goldChanged(int delta) {
+        if (delta != 0) {
+            gold.add(delta);
+        }
+    }
+
+    /**
+     * A game finished.
+     *
+     * @param won Whether every treasure was found.
+     * @param finalGold The gold the hunter ended with, which leaves circulation.
+     */
+    public void gameEnded(boolean won, int finalGold) {
+        activeGames.decrement();
+        gold.add(-finalGold);
+        if (won) {
+            wins.increment();
+        } else if (finalGold <= 0) {
+            losses.increment();
+        } else {
+            quits.increment(); // gave up or ran out of turns
+        }
+    }
+
+    /**
+     * A game stopped without an ending, because the player hung up or its input ran out.
+     *
+     * @param finalGold The gold the hunter had, which leaves circulation.
+     */
+    public void gameAbandoned(int finalGold) {
+        activeGames.decrement();
+        gold.add(-finalGold);
+        abandoned.increment();
+    }
+
+    // accessors
+    public long getGamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    public long getActiveGames() {
+        return activeGames.sum();
+    }
+
+    public long getGoldInCirculation() {
+        return gold.sum();
+    }
+
+    public long getWins() {
+        return wins.sum();
+    }
+
+    public long getLosses() {
+        return losses.sum();
+    }
+
+    public long getQuits() {
+        return quits.sum();
+    }
+
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    public String getReport() {
+        return infoString();
+    }
+
+    /**
+     * Publishes the game gauges and every action as MBeans on the platform MBean server.
+     * Calling it again does nothing.
+     */
+    public synchronized void register() {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName(DOMAIN + ":type=Games"));
+            for (ActionMetrics action : actions()) {
+                server.registerMBean(action, new ObjectName(DOMAIN + ":type=Action,name=" + action.getName()));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Couldn't register the game metrics", e);
+        }
+        registered = true;
+    }
+
+    /**
+     * Calls register() on a background thread. Loading JMX takes several hundred milliseconds,
+     * which the first game then doesn't have to wait for.
+     */
+    public void registerInBackground() {
+        Thread thread = new Thread(this::register, "metrics-register");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Prints infoString() every so often on a background thread, until stopReporter() is called.
+     *
+     * @param out Where to print.
+     * @param periodSeconds How often to print.
+     */
+    public synchronized void startReporter(PrintStream out, long periodSeconds) {
+        stopReporter();
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> out.print(infoString()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopReporter() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    private ActionMetrics[] actions() {
+        ActionMetrics[] all = new ActionMetrics[commands.length + 3];
+        System.arraycopy(commands, 0, all, 0, commands.length);
+        all[commands.length] = shopEnter;
+        all[commands.length + 1] = leaveTown;
+        all[commands.length + 2] = lookForTrouble;
+        return all;
+    }
+
+    /**
+     * @return A text dump of the gauges and of every action that has run at least once.
+     */
+    public String infoString() {
+        StringBuilder str = new StringBuilder();
+        str.append(String.format("Games: %,d started, %,d running, %,d won, %,d lost, %,d quit, %,d abandoned; %,d gold in circulation%n",
+                getGamesStarted(), getActiveGames(), getWins(), getLosses(), getQuits(), getAbandoned(), getGoldInCirculation()));
+        for (ActionMetrics action : actions()) {
+            if (action.getCount() > 0) {
+                str.append("  ").append(action.infoString()).append(System.lineSeparator());
+            }
+        }
+        return str.toString();
+    }
+}
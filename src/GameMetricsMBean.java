@@ -0,0 +1,22 @@
+/**
+ * GameMetricsMBean Interface<br /><br />
+ * What JMX shows about all the games running in this JVM.
+ */
+
+public interface GameMetricsMBean {
+    long getGamesStarted();
+
+    long getActiveGames();
+
+    long getGoldInCirculation();
+
+    long getWins();
+
+    long getLosses();
+
+    long getQuits();
+
+    long getAbandoned();
+
+    String getReport();
+}
@@ -0,0 +1,279 @@
+/**
+ * GameMode Class<br /><br />
+ * The difficulty settings of a game: how much the shop pays back for used items, how likely towns are to be tough,
+ * how much gold the hunter starts with, and the special rules of easy and samurai mode.<p>
+ * A mode also holds the odds of everything the dice decide in town (which terrain surrounds it, what a hunt
+ * turns up, how a brawl goes, whether an item breaks), each as an AliasTable built once when the mode is made,
+ * so every roll is a single draw whatever the number of outcomes.<p>
+ * The modes a player can pick, and the standard odds, come from the Content file.
+ */
+
+public final class GameMode {
+    // the standard odds, which every mode in the content file uses
+    public static final double TOUGH_TOWN_TROUBLE_CHANCE = Content.standard().getToughTroubleChance(); // of finding a fight, and of losing it
+    public static final double SLEEPY_TOWN_TROUBLE_CHANCE = Content.standard().getSleepyTroubleChance();
+    public static final double ITEM_BREAK_CHANCE = Content.standard().getItemBreakChance();
+    private static final double[] STANDARD_TERRAINS = Content.standard().getTerrainWeights();
+    private static final double[] STANDARD_TREASURES = Content.standard().getHuntWeights(); // treasures, then dust
+
+    // the outcomes of the item-break roll
+    public static final int ITEM_KEPT = 0;
+    public static final int ITEM_BROKEN = 1;
+    public static final int ITEM_SAVED = 2; // by the powerful force of easy mode
+
+    // every mode in the content file, in the order the simulations report them
+    private static final GameMode[] ALL = loadModes();
+    private static final String[] ANSWERS = loadAnswers();
+
+    // the modes the rules of the game refer to, which every content file must have
+    public static final GameMode EASY = required("easy");
+    public static final GameMode NORMAL = required("normal");
+    // in hard mode, you get less money back when you sell items, and the towns are "tougher"
+    public static final GameMode HARD = required("hard");
+    public static final GameMode SAMURAI = required("samurai");
+
+    // instance variables
+    private final String name;
+    private final double markdown;
+    private final double toughness;
+    private final int startingGold;
+    private final boolean itemProtection;
+    private final boolean samurai;
+    private final double toughTroubleChance;
+    private final double sleepyTroubleChance;
+    private final double itemBreakChance;
+    private final AliasTable terrainOdds;
+    private final AliasTable treasureOdds;
+    private final AliasTable toughBrawlOdds;
+    private final AliasTable sleepyBrawlOdds;
+    private final AliasTable itemBreakOdds;
+
+    /**
+     * @param name The name shown in reports.
+     * @param markdown Percentage of an item's price paid back when it is sold, in decimal format.
+     * @param toughness The chance of a town being a tough one.
+     * @param startingGold The gold the hunter starts with.
+     * @param itemProtection Whether a powerful force sometimes saves items from breaking (easy mode).
+     * @param samurai Whether the shop sells swords and a sword makes everything free (samurai mode).
+     */
+    public GameMode(String name, double markdown, double toughness, int startingGold, boolean itemProtection, boolean samurai) {
+        this(name, markdown, toughness, startingGold, itemProtection, samurai, STANDARD_TERRAINS, STANDARD_TREASURES,
+                TOUGH_TOWN_TROUBLE_CHANCE, SLEEPY_TOWN_TROUBLE_CHANCE, ITEM_BREAK_CHANCE);
+    }
+
+    /**
+     * Makes a mode with odds of its own.
+     *
+     * @param terrainWeights How likely each of Town's terrains is, or null for all the same.
+     * @param treasureWeights How likely a hunt is to turn up each treasure, then each kind of nothing (like dust).
+     * @param toughTroubleChance In a tough town, the chance of finding a fight, and of losing it without a sword.
+     * @param sleepyTroubleChance The same in a sleepy town.
+     * @param itemBreakChance The chance of the item used to cross the terrain breaking.
+     */
+    public GameMode(String name, double markdown, double toughness, int startingGold, boolean itemProtection, boolean samurai,
+                    double[] terrainWeights, double[] treasureWeights, double toughTroubleChance,
+                    double sleepyTroubleChance, double itemBreakChance) {
+        this.name = name;
+        this.markdown = markdown;
+        this.toughness = toughness;
+        this.startingGold = startingGold;
+        this.itemProtection = itemProtection;
+        this.samurai = samurai;
+        this.toughTroubleChance = toughTroubleChance;
+        this.sleepyTroubleChance = sleepyTroubleChance;
+        this.itemBreakChance = itemBreakChance;
+        if (terrainWeights == null) {
+            terrainOdds = AliasTable.uniform(Town.getTerrainCount());
+        } else if (terrainWeights.length != Town.getTerrainCount()) {
+            throw new IllegalArgumentException("Expected " + Town.getTerrainCount() + " terrain weights");
+        } else {
+            terrainOdds = new AliasTable(terrainWeights);
+        }
+        if (treasureWeights.length != Content.standard().getHuntCount()) {
+            throw new IllegalArgumentException("Expected " + Content.standard().getHuntCount() + " treasure weights");
+        }
+        treasureOdds = new AliasTable(treasureWeights);
+        toughBrawlOdds = brawlOdds(toughTroubleChance);
+        sleepyBrawlOdds = brawlOdds(sleepyTroubleChance);
+        if (itemProtection) {
+            // the force steps in on the first of two rolls, and only the second can break the item
+            itemBreakOdds = new AliasTable((1 - itemBreakChance) * (1 - itemBreakChance),
+                    (1 - itemBreakChance) * itemBreakChance, itemBreakChance);
+        } else {
+            itemBreakOdds = new AliasTable(1 - itemBreakChance, itemBreakChance, 0);
+        }
+    }
+
+    /**
+     * The odds of a whole brawl in one table: outcome 0 is no fight, 1 to MAX_BRAWL_GOLD are wins of that much
+     * gold, and the next MAX_BRAWL_GOLD are losses of 1 to MAX_BRAWL_GOLD gold.
+     */
+    private static AliasTable brawlOdds(double troubleChance) {
+        double[] weights = new double[1 + 2 * Town.MAX_BRAWL_GOLD];
+        weights[0] = 1 - troubleChance;
+        for (int gold = 1; gold <= Town.MAX_BRAWL_GOLD; gold++) {
+            weights[gold] = troubleChance * (1 - troubleChance) / Town.MAX_BRAWL_GOLD;
+            weights[Town.MAX_BRAWL_GOLD + gold] = troubleChance * troubleChance / Town.MAX_BRAWL_GOLD;
+        }
+        return new AliasTable(weights);
+    }
+
+    private static GameMode[] loadModes() {
+        Content content = Content.standard();
+        GameMode[] modes = new GameMode[content.getModeCount()];
+        for (int i = 0; i < modes.length; i++) {
+            modes[i] = new GameMode(content.getModeName(i), content.getMarkdown(i), content.getToughness(i),
+                    content.getStartingGold(i), content.hasItemProtection(i), content.isSamurai(i));
+        }
+        return modes;
+    }
+
+    private static String[] loadAnswers() {
+        String[] answers = new String[ALL.length];
+        for (int i = 0; i < answers.length; i++) {
+            answers[i] = Content.standard().getModeAnswer(i);
+        }
+        return answers;
+    }
+
+    private static GameMode required(String name) {
+        for (GameMode mode : ALL) {
+            if (mode.name.equals(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalStateException("The content file has no " + name + " mode, which the game needs");
+    }
+
+    /**
+     * @return How many modes there are.
+     */
+    public static int count() {
+        return ALL.length;
+    }
+
+    /**
+     * @param index Between 0 and count() - 1, in the order of the content file.
+     * @return That mode.
+     */
+    public static GameMode byIndex(int index) {
+        return ALL[index];
+    }
+
+    /**
+     * @param answer The answer to the "Hard mode?" prompt.
+     * @return The mode that answer picks; anything unrecognized means normal.
+     */
+    public static GameMode forAnswer(String answer) {
+        for (int i = 0; i < ALL.length; i++) {
+            if (ANSWERS[i].equals(answer)) {
+                return ALL[i];
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * @param name "easy", "normal", "hard", "samurai", or another mode from the content file.
+     * @return The mode with that name.
+     */
+    public static GameMode named(String name) {
+        for (GameMode mode : ALL) {
+            if (mode.name.equals(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown mode: " + name);
+    }
+
+    /**
+     * @return Whether this is one of the content file's modes, which named() finds again by name,
+     * rather than one made up with the constructor.
+     */
+    public boolean isInContent() {
+        for (GameMode mode : ALL) {
+            if (mode == this) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // accessors
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The answer to the "Hard mode?" prompt that picks this mode.
+     */
+    public String getAnswer() {
+        for (int i = 0; i < ALL.length; i++) {
+            if (ALL[i].name.equals(name)) {
+                return ANSWERS[i];
+            }
+        }
+        return NORMAL.getAnswer();
+    }
+
+    public double getMarkdown() {
+        return markdown;
+    }
+
+    public double getToughness() {
+        return toughness;
+    }
+
+    public int getStartingGold() {
+        return startingGold;
+    }
+
+    public boolean hasItemProtection() {
+        return itemProtection;
+    }
+
+    public boolean isSamurai() {
+        return samurai;
+    }
+
+    public double getToughTroubleChance() {
+        return toughTroubleChance;
+    }
+
+    public double getSleepyTroubleChance() {
+        return sleepyTroubleChance;
+    }
+
+    public double getItemBreakChance() {
+        return itemBreakChance;
+    }
+
+    /**
+     * @return Which of Town's terrains surrounds a new town.
+     */
+    public AliasTable getTerrainOdds() {
+        return terrainOdds;
+    }
+
+    /**
+     * @return What a hunt turns up: a crown, a trophy, a gem or dust.
+     */
+    public AliasTable getTreasureOdds() {
+        return treasureOdds;
+    }
+
+    /**
+     * @param toughTown Whether the brawl is in a tough town.
+     * @return How a brawl goes; see Town.lookForTrouble() for the outcomes.
+     */
+    public AliasTable getBrawlOdds(boolean toughTown) {
+        return toughTown ? toughBrawlOdds : sleepyBrawlOdds;
+    }
+
+    /**
+     * @return Whether the item used to leave town is kept, broken or saved (ITEM_KEPT, ITEM_BROKEN or ITEM_SAVED).
+     */
+    public AliasTable getItemBreakOdds() {
+        return itemBreakOdds;
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.SplittableRandom;
+
+/**
+ * GameRandom Class<br /><br />
+ * The source of every dice roll in a single game.<p>
+ * Each game owns its own GameRandom, so games running on different threads never compete for a shared generator,
+ * and a game started from the same seed plays out the same way again.<p>
+ * The rolls are exactly those of a SplittableRandom with the same seed, but the generator is written out here
+ * so that its whole state is two numbers the game can read: a GameState keeps them, and a game put back to
+ * that state rolls the same numbers again, without the capture itself changing what is rolled.
+ */
+
+public class GameRandom {
+    // constants
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    // instance variables
+    private long seed;
+    private long gamma; // always odd
+    private GameListener listener = GameListener.NONE;
+
+    /**
+     * Creates an unseeded random source, for interactive games that don't need to be replayed.
+     */
+    public GameRandom() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param seed The seed that decides every roll.
+     */
+    public GameRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Picks up a generator exactly where getSeed() and getGamma() left it.
+     */
+    GameRandom(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Derives the random source of one game in a batch.<p>
+     * The same root seed and game index always give the same stream, however the batch is divided between threads.
+     *
+     * @param rootSeed The seed of the whole batch.
+     * @param gameIndex The position of the game in the batch.
+     * @return The game's random source.
+     */
+    public static GameRandom forGame(long rootSeed, long gameIndex) {
+        return new GameRandom(mix64(rootSeed + mix64(gameIndex)));
+    }
+
+    /**
+     * @param listener Told about every number drawn from now on.
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return A number between 0 (inclusive) and 1 (exclusive), like Math.random().
+     */
+    public double nextDouble() {
+        double value = (mix64(nextSeed()) >>> 11) * DOUBLE_UNIT;
+        listener.randomDouble(value);
+        return value;
+    }
+
+    /**
+     * @param bound The upper limit (exclusive).
+     * @return A whole number between 0 (inclusive) and bound (exclusive).
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        // the same rejection of the uneven top end as SplittableRandom, so every value is equally likely
+        int value = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            value &= m;
+        } else {
+            for (int u = value >>> 1; u + m - (value = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+            }
+        }
+        listener.randomInt(bound, value);
+        return value;
+    }
+
+    /**
+     * @return A random long, for seeding other generators.
+     */
+    public long nextLong() {
+        long value = mix64(nextSeed());
+        listener.randomLong(value);
+        return value;
+    }
+
+    /**
+     * @return A random boolean.
+     */
+    public boolean nextBoolean() {
+        boolean value = mix32(nextSeed()) < 0;
+        listener.randomInt(2, value ? 1 : 0);
+        return value;
+    }
+
+    /**
+     * @return Where the generator is: the next roll comes from the seed after this one.
+     */
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return How far the seed moves on each roll.
+     */
+    long getGamma() {
+        return gamma;
+    }
+
+    /**
+     * Puts the generator back where getSeed() and getGamma() once found it, so the same numbers come up again.
+     */
+    void jumpTo(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Splits off an independent random source, for example to give a bot its own rolls
+     * without changing the rolls the game itself sees.
+     *
+     * @return The new random source.
+     */
+    public GameRandom split() {
+        long seed = nextLong();
+        long gamma = mixGamma(nextSeed());
+        listener.randomLong(gamma);
+        return new GameRandom(seed, gamma);
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    /**
+     * Scrambles a number so that nearby inputs give unrelated outputs (the SplitMix64 finalizer).
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    /**
+     * Makes the step of a split-off generator: odd, and with enough bits flipping to mix well.
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * GameRenderer Interface<br /><br />
+ * Everything the game prints goes through a GameRenderer, so the same game can be shown in a Swing window,
+ * on an ANSI terminal, or nowhere at all when nobody is watching.
+ */
+
+public interface GameRenderer {
+
+    /**
+     * Shows a piece of text after everything shown so far.
+     *
+     * @param text The text to show.
+     * @param color The color of the text.
+     */
+    void addTextToWindow(String text, TextColor color);
+
+    /**
+     * Removes all the text shown so far.
+     */
+    void clear();
+
+    /**
+     * Makes sure everything added so far is actually on screen.<p>
+     * Renderers may hold text back and draw it in one go; the game calls this before it waits for the player.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * GameResult Class<br /><br />
+ * Records how a single game of Treasure Hunter ended.
+ */
+
+public class GameResult {
+    // instance variables
+    private String mode;
+    private boolean won;
+    private int turns;
+    private int gold;
+    private int treasures;
+    private int brawlsWon;
+    private int brawlsLost;
+    private int itemsLost;
+
+    /**
+     * @param mode The difficulty the game was played on.
+     * @param won true if the hunter collected every treasure.
+     * @param turns The number of menu choices made.
+     * @param gold The gold the hunter had at the end.
+     */
+    public GameResult(String mode, boolean won, int turns, int gold) {
+        this(mode, won, turns, gold, 0, 0, 0, 0);
+    }
+
+    /**
+     * @param treasures How many different treasures the hunter collected.
+     * @param brawlsWon How many fights the hunter won.
+     * @param brawlsLost How many fights the hunter lost.
+     * @param itemsLost How many items broke while crossing terrain.
+     */
+    public GameResult(String mode, boolean won, int turns, int gold, int treasures, int brawlsWon, int brawlsLost, int itemsLost) {
+        this.mode = mode;
+        this.won = won;
+        this.turns = turns;
+        this.gold = gold;
+        this.treasures = treasures;
+        this.brawlsWon = brawlsWon;
+        this.brawlsLost = brawlsLost;
+        this.itemsLost = itemsLost;
+    }
+
+    // accessors
+    public String getMode() {
+        return mode;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public int getGold() {
+        return gold;
+    }
+
+    public int getTreasures() {
+        return treasures;
+    }
+
+    public int getBrawlsWon() {
+        return brawlsWon;
+    }
+
+    public int getBrawlsLost() {
+        return brawlsLost;
+    }
+
+    public int getItemsLost() {
+        return itemsLost;
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GameServer Class<br /><br />
+ * Hosts many games of Treasure Hunter at once over TCP, one game per connection.<p>
+ * Every connection is played on its own virtual thread with its own input, output and random rolls,
+ * so thousands of players can share one JVM and nothing is shared between games.
+ * Players can connect with any line-based client, e.g. <code>nc localhost 4000</code>.<p>
+ * Closing the server hangs up on every player still connected, since a session waiting for a player
+ * to type would otherwise keep it open for as long as they stay idle.<p>
+ * Usage: java GameServer [port]
+ */
+
+public class GameServer {
+    // constants
+    public static final int DEFAULT_PORT = 4000;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    // instance variables
+    private ServerSocket serverSocket;
+    private ExecutorService sessions;
+    private AtomicLong activeSessions;
+    private AtomicLong finishedSessions;
+    private Set<Socket> openSockets;
+    private volatile boolean closing;
+
+    /**
+     * Opens the server socket on the loopback address.
+     *
+     * @param port The port to listen on, or 0 to pick a free one.
+     * @throws IOException if the socket can't be opened.
+     */
+    public GameServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        sessions = Executors.newVirtualThreadPerTaskExecutor();
+        activeSessions = new AtomicLong();
+        finishedSessions = new AtomicLong();
+        openSockets = ConcurrentHashMap.newKeySet();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    public long getFinishedSessions() {
+        return finishedSessions.get();
+    }
+
+    /**
+     * Accepts connections until the server is closed, starting a game for each one.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                try {
+                    sessions.execute(() -> runSession(socket));
+                } catch (RejectedExecutionException e) {
+                    socket.close(); // accepted just as the server closed
+                }
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Could not accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections, hangs up on every player, and waits a while for their sessions to finish.
+     *
+     * @throws IOException if the server socket can't be closed, or the sessions don't finish in time.
+     */
+    public void close() throws IOException {
+        closing = true;
+        serverSocket.close();
+        sessions.shutdown();
+        for (Socket socket : openSockets) {
+            closeQuietly(socket);
+        }
+        try {
+            if (!sessions.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                sessions.shutdownNow();
+                throw new IOException("Sessions still running " + CLOSE_TIMEOUT_SECONDS + " s after closing");
+            }
+        } catch (InterruptedException e) {
+            sessions.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing", e);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // hanging up anyway
+        }
+    }
+
+    /**
+     * Plays one game over a connection. The game ends when it is won or lost, or when the player hangs up.
+     */
+    private void runSession(Socket socket) {
+        activeSessions.incrementAndGet();
+        openSockets.add(socket);
+        if (closing) {
+            closeQuietly(socket); // close() may have gone through the sockets before this one was added
+        }
+        try (socket; InputPipeline in = InputPipeline.fromSocket(socket)) {
+            socket.setTcpNoDelay(true);
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8);
+            TreasureHunter game = new TreasureHunter(new ConsoleStrategy(in), new AnsiRenderer(out), new GameRandom());
+            game.play();
+        } catch (NoSuchElementException e) {
+            // the player hung up in the middle of the game
+        } catch (IOException e) {
+            System.err.println("Session failed: " + e.getMessage());
+        } finally {
+            openSockets.remove(socket);
+            activeSessions.decrementAndGet();
+            finishedSessions.incrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameMetrics.INSTANCE.registerInBackground();
+        GameMetrics.INSTANCE.startReporter(System.out, 60);
+        GameServer server = new GameServer(port);
+        System.out.println("Treasure Hunter server listening on port " + server.getPort());
+        server.serve();
+    }
+}
@@ -0,0 +1,226 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * GameSnapshot Class<br /><br />
+ * Everything needed to carry on a game later: the hunter, the current town, the per-town hunt and dig flags
+ * and where the dice are.<p>
+ * A snapshot is written in a compact, versioned binary format: the magic bytes "THS", a version byte,
+ * then each field as a varint, a single byte, a fixed 8-byte long or a length-prefixed UTF-8 string.
+ * A typical game takes well under a hundred bytes.
+ */
+
+public final class GameSnapshot {
+    // constants
+    private static final byte[] MAGIC = {'T', 'H', 'S'};
+    public static final byte VERSION = 1;
+    private static final int SEARCHED_TOWN = 1;
+    private static final int DUG_TOWN = 2;
+    private static final int TOUGH_TOWN = 4;
+
+    // instance variables
+    private final String hunterName;
+    private final String mode;
+    private final int gold;
+    private final long kitMask;
+    private final long treasureMask;
+    private final boolean searchedTown;
+    private final boolean dugTown;
+    private final int turns;
+    private final String terrainName;
+    private final String neededItem;
+    private final boolean toughTown;
+    private final String latestNews;
+    private final long worldSeed;
+    private final long townId;
+    private final long randomSeed;
+    private final long randomGamma;
+    private final int brawlsWon;
+    private final int brawlsLost;
+    private final int itemsLost;
+
+    public GameSnapshot(String hunterName, String mode, int gold, long kitMask, long treasureMask, boolean searchedTown,
+                        boolean dugTown, int turns, String terrainName, String neededItem, boolean toughTown,
+                        String latestNews, long worldSeed, long townId, long randomSeed, long randomGamma,
+                        int brawlsWon, int brawlsLost, int itemsLost) {
+        this.hunterName = hunterName;
+        this.mode = mode;
+        this.gold = gold;
+        this.kitMask = kitMask;
+        this.treasureMask = treasureMask;
+        this.searchedTown = searchedTown;
+        this.dugTown = dugTown;
+        this.turns = turns;
+        this.terrainName = terrainName;
+        this.neededItem = neededItem;
+        this.toughTown = toughTown;
+        this.latestNews = latestNews;
+        this.worldSeed = worldSeed;
+        this.townId = townId;
+        this.randomSeed = randomSeed;
+        this.randomGamma = randomGamma;
+        this.brawlsWon = brawlsWon;
+        this.brawlsLost = brawlsLost;
+        this.itemsLost = itemsLost;
+    }
+
+    /**
+     * @return The most bytes writeTo() can need for this snapshot.
+     */
+    public int maxBytes() {
+        return MAGIC.length + 1 + 1 + 3 * Long.BYTES + 9 * Varint.MAX_BYTES + Varint.maxStringBytes(hunterName)
+                + Varint.maxStringBytes(mode) + Varint.maxStringBytes(terrainName) + Varint.maxStringBytes(neededItem)
+                + Varint.maxStringBytes(latestNews);
+    }
+
+    /**
+     * Writes the snapshot at the buffer's position.
+     *
+     * @param buffer A buffer with at least maxBytes() remaining.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        Varint.writeString(buffer, hunterName);
+        Varint.writeString(buffer, mode);
+        Varint.writeUnsigned(buffer, gold);
+        Varint.writeUnsigned(buffer, kitMask);
+        Varint.writeUnsigned(buffer, treasureMask);
+        int flags = (searchedTown ? SEARCHED_TOWN : 0) | (dugTown ? DUG_TOWN : 0) | (toughTown ? TOUGH_TOWN : 0);
+        buffer.put((byte) flags);
+        Varint.writeUnsigned(buffer, turns);
+        Varint.writeString(buffer, terrainName);
+        Varint.writeString(buffer, neededItem);
+        Varint.writeString(buffer, latestNews);
+        buffer.putLong(worldSeed);
+        Varint.writeUnsigned(buffer, townId);
+        buffer.putLong(randomSeed);
+        buffer.putLong(randomGamma);
+        Varint.writeUnsigned(buffer, brawlsWon);
+        Varint.writeUnsigned(buffer, brawlsLost);
+        Varint.writeUnsigned(buffer, itemsLost);
+    }
+
+    /**
+     * Reads a snapshot from the buffer's position.
+     *
+     * @param buffer The buffer holding the snapshot.
+     * @return The snapshot.
+     * @throws IllegalArgumentException if the bytes aren't a snapshot this version can read.
+     */
+    public static GameSnapshot readFrom(ByteBuffer buffer) {
+        try {
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IllegalArgumentException("Not a Treasure Hunter snapshot");
+                }
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version " + version);
+            }
+            String hunterName = Varint.readString(buffer);
+            String mode = Varint.readString(buffer);
+            int gold = (int) Varint.readUnsigned(buffer);
+            long kitMask = Varint.readUnsigned(buffer);
+            long treasureMask = Varint.readUnsigned(buffer);
+            int flags = buffer.get();
+            int turns = (int) Varint.readUnsigned(buffer);
+            String terrainName = Varint.readString(buffer);
+            String neededItem = Varint.readString(buffer);
+            String latestNews = Varint.readString(buffer);
+            long worldSeed = buffer.getLong();
+            long townId = Varint.readUnsigned(buffer);
+            long randomSeed = buffer.getLong();
+            long randomGamma = buffer.getLong();
+            if ((randomGamma & 1) == 0) {
+                throw new IllegalArgumentException("Snapshot has an even dice gamma " + randomGamma);
+            }
+            int brawlsWon = (int) Varint.readUnsigned(buffer);
+            int brawlsLost = (int) Varint.readUnsigned(buffer);
+            int itemsLost = (int) Varint.readUnsigned(buffer);
+            return new GameSnapshot(hunterName, mode, gold, kitMask, treasureMask, (flags & SEARCHED_TOWN) != 0,
+                    (flags & DUG_TOWN) != 0, turns, terrainName, neededItem, (flags & TOUGH_TOWN) != 0, latestNews,
+                    worldSeed, townId, randomSeed, randomGamma, brawlsWon, brawlsLost, itemsLost);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Snapshot is cut short", e);
+        }
+    }
+
+    // accessors
+    public String getHunterName() {
+        return hunterName;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public int getGold() {
+        return gold;
+    }
+
+    public long getKitMask() {
+        return kitMask;
+    }
+
+    public long getTreasureMask() {
+        return treasureMask;
+    }
+
+    public boolean hasSearchedTown() {
+        return searchedTown;
+    }
+
+    public boolean hasDugTown() {
+        return dugTown;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public String getTerrainName() {
+        return terrainName;
+    }
+
+    public String getNeededItem() {
+        return neededItem;
+    }
+
+    public boolean isToughTown() {
+        return toughTown;
+    }
+
+    public String getLatestNews() {
+        return latestNews;
+    }
+
+    public long getWorldSeed() {
+        return worldSeed;
+    }
+
+    public long getTownId() {
+        return townId;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public long getRandomGamma() {
+        return randomGamma;
+    }
+
+    public int getBrawlsWon() {
+        return brawlsWon;
+    }
+
+    public int getBrawlsLost() {
+        return brawlsLost;
+    }
+
+    public int getItemsLost() {
+        return itemsLost;
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * GameState Class<br /><br />
+ * Everything about a game at one moment, frozen: the hunter, the town they are in, the per-town hunt and dig flags,
+ * the tallies for the result, and where the dice are.<p>
+ * A game makes a new state after every move instead of changing the old one, so a state can be handed to
+ * another thread, kept for undo, or used to start a "what if" copy of the game, and it will never change underneath.
+ * Each state shares everything that didn't change with the one before it: the names, the mode and the terrain are
+ * the same objects, and the town part is reused as a whole for as long as the hunter stays in the same town.
+ * What is left is a handful of numbers, so making a state costs about as much as one small object.<p>
+ * The dice are part of the state, so a game put back to a state rolls exactly what it rolled the first time.
+ */
+
+public final class GameState {
+    // instance variables
+    private final String hunterName;
+    private final GameMode mode;
+    private final int gold;
+    private final long kitMask;
+    private final long treasureMask;
+    private final int turns;
+    private final Place place;
+    private final boolean searchedTown;
+    private final boolean dugTown;
+    private final String latestNews;
+    private final int brawlsWon;
+    private final int brawlsLost;
+    private final int itemsLost;
+    private final long randomSeed;
+    private final long randomGamma;
+
+    GameState(String hunterName, GameMode mode, int gold, long kitMask, long treasureMask, int turns, Place place,
+              boolean searchedTown, boolean dugTown, String latestNews, int brawlsWon, int brawlsLost, int itemsLost,
+              long randomSeed, long randomGamma) {
+        this.hunterName = hunterName;
+        this.mode = mode;
+        this.gold = gold;
+        this.kitMask = kitMask;
+        this.treasureMask = treasureMask;
+        this.turns = turns;
+        this.place = place;
+        this.searchedTown = searchedTown;
+        this.dugTown = dugTown;
+        this.latestNews = latestNews;
+        this.brawlsWon = brawlsWon;
+        this.brawlsLost = brawlsLost;
+        this.itemsLost = itemsLost;
+        this.randomSeed = randomSeed;
+        this.randomGamma = randomGamma;
+    }
+
+    /**
+     * Where a hunter is: a town of a world. It only changes when the hunter moves, so every state
+     * in between points to the same one.
+     */
+    static final class Place {
+        private final long worldSeed;
+        private final long townId;
+        private final Terrain terrain;
+        private final boolean toughTown;
+
+        Place(long worldSeed, long townId, Terrain terrain, boolean toughTown) {
+            this.worldSeed = worldSeed;
+            this.townId = townId;
+            this.terrain = terrain;
+            this.toughTown = toughTown;
+        }
+
+        /**
+         * @return Whether this is the town described, so the place can be shared instead of made again.
+         */
+        boolean isAt(long worldSeed, long townId, Terrain terrain, boolean toughTown) {
+            return this.worldSeed == worldSeed && this.townId == townId && this.terrain == terrain && this.toughTown == toughTown;
+        }
+    }
+
+    /**
+     * @return Whether the hunter has collected every treasure.
+     */
+    public boolean isWon() {
+        return treasureMask == Treasure.allMask();
+    }
+
+    /**
+     * @return Whether the game is over: the hunter has won or has no gold left.
+     */
+    public boolean isOver() {
+        return isWon() || gold <= 0;
+    }
+
+    /**
+     * @return The result the game would have if it ended in this state.
+     */
+    public GameResult toResult() {
+        return new GameResult(mode.getName(), isWon(), turns, gold, Long.bitCount(treasureMask), brawlsWon, brawlsLost, itemsLost);
+    }
+
+    /**
+     * @return The state as a snapshot that can be saved.
+     * @throws IllegalStateException if the game isn't in one of the content file's modes, which is all a snapshot can name.
+     */
+    public GameSnapshot toSnapshot() {
+        if (!mode.isInContent()) {
+            throw new IllegalStateException("A game in the made-up mode \"" + mode.getName() + "\" can't be saved");
+        }
+        return new GameSnapshot(hunterName, mode.getName(), gold, kitMask, treasureMask, searchedTown, dugTown, turns,
+                place.terrain.getTerrainName(), place.terrain.getNeededItem(), place.toughTown, latestNews,
+                place.worldSeed, place.townId, randomSeed, randomGamma, brawlsWon, brawlsLost, itemsLost);
+    }
+
+    // accessors
+    public String getHunterName() {
+        return hunterName;
+    }
+
+    public GameMode getMode() {
+        return mode;
+    }
+
+    public int getGold() {
+        return gold;
+    }
+
+    public long getKitMask() {
+        return kitMask;
+    }
+
+    public long getTreasureMask() {
+        return treasureMask;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public long getWorldSeed() {
+        return place.worldSeed;
+    }
+
+    public long getTownId() {
+        return place.townId;
+    }
+
+    public Terrain getTerrain() {
+        return place.terrain;
+    }
+
+    public boolean isToughTown() {
+        return place.toughTown;
+    }
+
+    public boolean hasSearchedTown() {
+        return searchedTown;
+    }
+
+    public boolean hasDugTown() {
+        return dugTown;
+    }
+
+    public String getLatestNews() {
+        return latestNews;
+    }
+
+    public int getBrawlsWon() {
+        return brawlsWon;
+    }
+
+    public int getBrawlsLost() {
+        return brawlsLost;
+    }
+
+    public int getItemsLost() {
+        return itemsLost;
+    }
+
+    Place getPlace() {
+        return place;
+    }
+
+    long getRandomSeed() {
+        return randomSeed;
+    }
+
+    long getRandomGamma() {
+        return randomGamma;
+    }
+
+    @Override
+    public String toString() {
+        return hunterName + " on turn " + turns + ": " + gold + " gold, " + Long.bitCount(treasureMask) + " treasures, in a "
+                + (place.toughTown ? "tough" : "sleepy") + " town surrounded by " + place.terrain.getTerrainName();
+    }
+}
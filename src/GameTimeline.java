@@ -0,0 +1,158 @@
+/**
+ * GameTimeline Class<br /><br />
+ * The states a game has been through, with undo and redo.<p>
+ * A timeline never changes: recording a state, undoing or redoing gives a new timeline and leaves the old one as it
+ * was. Underneath are two linked lists of GameStates, the past (newest first, starting with the present) and the
+ * undone future (next first). Each operation only adds or drops the first link, so it takes the same small time however
+ * long the game, and every timeline made from another shares all of its history with it.<p>
+ * That makes branching free: keep a timeline, carry on the game, and the kept one is still there to start a
+ * different game from with TreasureHunter.restore(), sharing everything up to the point they split.<p>
+ * A timeline can be limited to a number of undos, so a long game doesn't hold on to every state it has been in.
+ * Older states are let go in batches: once the past holds twice as many states as it may, the newest ones are
+ * copied into a fresh list and the rest are left for the garbage collector. The copy is paid for by the records
+ * that filled the list up, so a record still takes the same small time on average, and other timelines sharing
+ * the old list keep it.
+ */
+
+public final class GameTimeline {
+    // instance variables
+    private final Link past;   // the present first
+    private final Link future; // what redo brings back, the next first; null if nothing was undone
+    private final int depth;   // how many states of the past can be reached
+    private final int length;  // how many links the past holds, which may be more than can be reached
+    private final int capacity; // the most states that can be reached
+
+    private GameTimeline(Link past, Link future, int depth, int length, int capacity) {
+        this.past = past;
+        this.future = future;
+        this.depth = depth;
+        this.length = length;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param state The state a timeline starts in.
+     * @return A timeline holding only that state, which keeps every state recorded after it.
+     */
+    public static GameTimeline of(GameState state) {
+        return of(state, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param state The state a timeline starts in.
+     * @param maxUndos How many moves back undo can go; 0 keeps only the present.
+     * @return A timeline holding only that state.
+     */
+    public static GameTimeline of(GameState state, int maxUndos) {
+        if (maxUndos < 0) {
+            throw new IllegalArgumentException("Can't keep " + maxUndos + " undos");
+        }
+        int capacity = (maxUndos == Integer.MAX_VALUE) ? maxUndos : maxUndos + 1;
+        return new GameTimeline(new Link(state, null), null, 1, 1, capacity);
+    }
+
+    /**
+     * One state and the rest of the list.
+     */
+    private static final class Link {
+        private final GameState state;
+        private final Link next;
+
+        Link(GameState state, Link next) {
+            this.state = state;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Moves on to a new state. Anything that had been undone can't be redone any more.
+     *
+     * @param state The new present.
+     * @return The new timeline.
+     */
+    public GameTimeline record(GameState state) {
+        Link newPast = new Link(state, past);
+        int newDepth = Math.min(depth + 1, capacity);
+        int newLength = length + 1;
+        if (newLength > 2L * capacity) {
+            newPast = copy(newPast, newDepth);
+            newLength = newDepth;
+        }
+        return new GameTimeline(newPast, null, newDepth, newLength, capacity);
+    }
+
+    /**
+     * @return A new list of the first count states of a list.
+     */
+    private static Link copy(Link list, int count) {
+        GameState[] states = new GameState[count];
+        for (int i = 0; i < count; i++) {
+            states[i] = list.state;
+            list = list.next;
+        }
+        Link copy = null;
+        for (int i = count - 1; i >= 0; i--) {
+            copy = new Link(states[i], copy);
+        }
+        return copy;
+    }
+
+    /**
+     * @return The timeline with the present undone, or this one if it is already at the start.
+     */
+    public GameTimeline undo() {
+        if (!canUndo()) {
+            return this;
+        }
+        return new GameTimeline(past.next, new Link(past.state, future), depth - 1, length - 1, capacity);
+    }
+
+    /**
+     * @return The timeline with the last undo redone, or this one if there is nothing to redo.
+     */
+    public GameTimeline redo() {
+        if (!canRedo()) {
+            return this;
+        }
+        return new GameTimeline(new Link(future.state, past), future.next, depth + 1, length + 1, capacity);
+    }
+
+    public boolean canUndo() {
+        return depth > 1;
+    }
+
+    public boolean canRedo() {
+        return future != null;
+    }
+
+    /**
+     * @return The state the game is in now.
+     */
+    public GameState getPresent() {
+        return past.state;
+    }
+
+    /**
+     * @return How many states there are up to and including the present.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Looks back along the past.
+     *
+     * @param stepsBack 0 for the present, 1 for the state before it, and so on.
+     * @return The state that many steps back.
+     */
+    public GameState getState(int stepsBack) {
+        if (stepsBack < 0 || stepsBack >= depth) {
+            throw new IllegalArgumentException("No state " + stepsBack + " steps back in a timeline of " + depth);
+        }
+        Link link = past;
+        for (int i = 0; i < stepsBack; i++) {
+            link = link.next;
+        }
+        return link.state;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * The GreedyStrategy plays the way a sensible player would:<p>
+ * hunt every town, dig when it has a shovel, buy whatever the surrounding terrain needs,
+ * move on as soon as it can, and look for trouble when there is nothing better to do.
+ */
+
+public class GreedyStrategy implements Strategy {
+    // instance variables
+    private String mode;
+    private Item wanted;
+    private Town lastShoppedTown;
+    private int goldWhenShopped;
+
+    /**
+     * @param mode The answer given to the "Hard mode?" prompt.
+     */
+    public GreedyStrategy(String mode) {
+        this.mode = mode;
+        wanted = null;
+        lastShoppedTown = null;
+        goldWhenShopped = 0;
+    }
+
+    public String chooseName() {
+        return "bot";
+    }
+
+    public String chooseMode() {
+        return mode;
+    }
+
+    public String chooseMove(TreasureHunter game) {
+        Hunter hunter = game.getHunter();
+        Town town = game.getCurrentTown();
+        Item needed = town.getTerrain().getNeededItemType();
+
+        if (!game.hasSearchedTown()) {
+            return "h";
+        }
+        if (hunter.hasItem(Item.SHOVEL) && !game.hasDugTown()) {
+            return "d";
+        }
+        if (mode.equals("s") && !hunter.hasItem(Item.SWORD) && shouldShopFor(Item.SWORD, hunter, town)) {
+            return "b";
+        }
+        if (!hunter.hasItem(needed) && shouldShopFor(needed, hunter, town)) {
+            return "b";
+        }
+        if (!hunter.hasItem(Item.SHOVEL) && hunter.hasItem(needed) && shouldShopFor(Item.SHOVEL, hunter, town)) {
+            return "b";
+        }
+        if (hunter.hasItem(needed)) {
+            return "m";
+        }
+        return "l";
+    }
+
+    /**
+     * Decides whether another trip to the shop is worth it:
+     * only if this item hasn't been tried in this town yet, or the hunter has earned gold since the last try.
+     */
+    private boolean shouldShopFor(Item item, Hunter hunter, Town town) {
+        if (town == lastShoppedTown && item == wanted && hunter.getGold() <= goldWhenShopped) {
+            return false;
+        }
+        lastShoppedTown = town;
+        wanted = item;
+        goldWhenShopped = hunter.getGold();
+        return true;
+    }
+
+    public String chooseItemToBuy(Hunter customer) {
+        return wanted.getName();
+    }
+
+    public String chooseItemToSell(Hunter customer) {
+        return "";
+    }
+
+    public boolean confirm(Hunter customer, String item, int price) {
+        // spending the last gold piece ends the game
+        return price < customer.getGold();
+    }
+}
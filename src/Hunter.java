@@ -1,18 +1,18 @@
-import java.awt.*;
-import java.util.*;
 /**
  * Hunter Class<br /><br />
- * This class represents the treasure hunter character (the player) in the Treasure Hunt game.
+ * This class represents the treasure hunter character (the player) in the Treasure Hunt game.<p>
+ * The kit and the treasures are each kept as a bitmask with one bit per Item or Treasure,
+ * so every check, add and remove is a single bitwise operation.
  * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
  */
 
 public class Hunter {
     //instance variables
     private String hunterName;
-    private String[] kit;
+    private long kit;
     private int gold;
-    private String[] treasures;
-    private String newTreasure;
+    private long treasures;
+    private GameListener listener;
 
     /**
      * The base constructor of a Hunter assigns the name to the hunter and an empty kit.
@@ -22,9 +22,31 @@ public class Hunter {
      */
     public Hunter(String hunterName, int startingGold) {
         this.hunterName = hunterName;
-        kit = new String[8]; // only 5 possible items can be stored in kit
+        kit = 0; // one bit per Item
         gold = startingGold;
-        treasures = new String[3];
+        treasures = 0; // one bit per Treasure
+        listener = GameListener.NONE;
+    }
+
+    /**
+     * Rebuilds a hunter who already has items and treasures, such as one restored from a snapshot.
+     *
+     * @param hunterName The hunter's name.
+     * @param gold The gold the hunter has.
+     * @param kitMask The bits of the Items in the kit.
+     * @param treasureMask The bits of the Treasures collected.
+     */
+    public Hunter(String hunterName, int gold, long kitMask, long treasureMask) {
+        this(hunterName, gold);
+        kit = kitMask;
+        treasures = treasureMask;
+    }
+
+    /**
+     * @param listener Told about every change to the hunter's gold, kit and treasures from now on.
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
     }
 
     //Accessors
@@ -36,16 +58,32 @@ public class Hunter {
         return gold;
     }
 
+    /**
+     * @return The kit as a bitmask, with the bit of every Item the hunter carries set.
+     */
+    public long getKitMask() {
+        return kit;
+    }
+
+    /**
+     * @return The treasures as a bitmask, with the bit of every Treasure collected set.
+     */
+    public long getTreasureMask() {
+        return treasures;
+    }
+
     /**
      * Updates the amount of gold the hunter has.
      *
      * @param modifier Amount to modify gold by.
      */
     public void changeGold(int modifier) {
+        int before = gold;
         gold += modifier;
         if (gold < 0) {
             gold = 0;
         }
+        listener.goldChanged(gold - before, gold);
     }
 
     /**
@@ -55,15 +93,29 @@ public class Hunter {
      * @param costOfItem The cost of the item.
      * @return true if the item is successfully bought.
      */
-    public boolean buyItem(String item, int costOfItem) {
-        if (gold < costOfItem || hasItemInKit(item)) {
+    public boolean buyItem(Item item, int costOfItem) {
+        if (gold < costOfItem || hasItem(item)) {
             return false;
         }
         gold -= costOfItem;
         addItem(item);
+        listener.itemBought(item, costOfItem);
+        listener.goldChanged(-costOfItem, gold);
         return true;
     }
 
+    /**
+     * Buys an item from a shop by name.
+     *
+     * @param item The name of the item the hunter is buying.
+     * @param costOfItem The cost of the item.
+     * @return true if the item is successfully bought; false if there is no such item.
+     */
+    public boolean buyItem(String item, int costOfItem) {
+        Item found = Item.named(item);
+        return found != null && buyItem(found, costOfItem);
+    }
+
     /**
      * The Hunter is selling an item to a shop for gold.<p>
      * This method checks to make sure that the seller has the item and that the seller is getting more than 0 gold.
@@ -72,68 +124,109 @@ public class Hunter {
      * @param buyBackPrice the amount of gold earned from selling the item
      * @return true if the item was successfully sold.
      */
-    public boolean sellItem(String item, int buyBackPrice) {
-        if (buyBackPrice <= 0 || !hasItemInKit(item)) {
+    public boolean sellItem(Item item, int buyBackPrice) {
+        if (buyBackPrice <= 0 || !hasItem(item)) {
             return false;
         }
         gold += buyBackPrice;
-        removeItemFromKit(item);
+        removeItem(item);
+        listener.itemSold(item, buyBackPrice);
+        listener.goldChanged(buyBackPrice, gold);
         return true;
     }
 
     /**
-     * Removes an item from the kit by setting the index of the item to null.
+     * Sells an item to a shop by name.
+     *
+     * @param item The name of the item being sold.
+     * @param buyBackPrice the amount of gold earned from selling the item
+     * @return true if the item was successfully sold.
+     */
+    public boolean sellItem(String item, int buyBackPrice) {
+        Item found = Item.named(item);
+        return found != null && sellItem(found, buyBackPrice);
+    }
+
+    /**
+     * Removes an item from the kit by clearing its bit.
      *
      * @param item The item to be removed.
      */
-    public void removeItemFromKit(String item) {
-        int itmIdx = findItemInKit(item);
+    public void removeItem(Item item) {
+        kit &= ~item.getMask();
+    }
+
+    /**
+     * Removes an item that broke or got lost, rather than one that was sold.
+     *
+     * @param item The item lost.
+     */
+    public void loseItem(Item item) {
+        if (hasItem(item)) {
+            removeItem(item);
+            listener.itemLost(item);
+        }
+    }
 
-        // if item is found
-        if (itmIdx >= 0) {
-            kit[itmIdx] = null;
+    /**
+     * Removes an item from the kit by name.
+     *
+     * @param item The item to be removed.
+     */
+    public void removeItemFromKit(String item) {
+        Item found = Item.named(item);
+        if (found != null) {
+            removeItem(found);
         }
     }
 
     /**
      * Checks to make sure that the item is not already in the kit.
-     * If not, it assigns the item to an index in the kit with a null value ("empty" position).
+     * If not, it sets the item's bit in the kit.
      *
      * @param item The item to be added to the kit.
      * @return true if the item is not in the kit and has been added.
      */
-    private boolean addItem(String item) {
-        if (!hasItemInKit(item)) {
-            int idx = emptyPositionInKit();
-            kit[idx] = item;
+    private boolean addItem(Item item) {
+        if (!hasItem(item)) {
+            kit |= item.getMask();
             return true;
         }
         return false;
     }
 
     /**
-     * Checks if the kit Array has the specified item.
+     * Checks if the kit has the specified item.
      *
      * @param item The search item
      * @return true if the item is found.
      */
+    public boolean hasItem(Item item) {
+        return (kit & item.getMask()) != 0;
+    }
+
+    /**
+     * Checks if the kit has the item with the specified name, ignoring upper and lower case.
+     *
+     * @param item The name of the search item
+     * @return true if the item is found.
+     */
     public boolean hasItemInKit(String item) {
-        for (String tmpItem : kit) {
-            if (item.equals(tmpItem)) {
-                // early return
-                return true;
-            }
-        }
-        return false;
+        Item found = Item.named(item);
+        return found != null && hasItem(found);
+    }
+
+    /**
+     * @param treasure The treasure to look for.
+     * @return true if the hunter has already collected it.
+     */
+    public boolean hasTreasure(Treasure treasure) {
+        return (treasures & treasure.getMask()) != 0;
     }
+
     public boolean hasItemInTreasureList(String item) {
-        for (String tmpItem : treasures) {
-            if (item.equals(tmpItem)) {
-                // early return
-                return true;
-            }
-        }
-        return false;
+        Treasure found = Treasure.named(item);
+        return found != null && hasTreasure(found);
     }
 
      /**
@@ -143,109 +236,74 @@ public class Hunter {
      * @return The printable String representation of the inventory.
      */
     public String getInventory() {
-        String printableKit = "";
-        String space = " ";
-
-        for (String item : kit) {
-            if (item != null) {
-                printableKit += item + space;
-            }
+        StringBuilder printableKit = new StringBuilder();
+        for (long bits = kit; bits != 0; bits &= bits - 1) {
+            printableKit.append(Item.byId(Long.numberOfTrailingZeros(bits)).getName()).append(' ');
         }
-        return printableKit;
+        return printableKit.toString();
     }
 
     /**
      * @return A string representation of the hunter.
      */
-    public void info(OutputWindow window) {
-        window.addTextToWindow(hunterName + " has ", Color.BLACK);
-        window.addTextToWindow(gold + " gold", Color.YELLOW);
+    public void info(GameRenderer window) {
+        window.addTextToWindow(hunterName + " has ", TextColor.BLACK);
+        window.addTextToWindow(gold + " gold", TextColor.YELLOW);
         if (!kitIsEmpty()) {
-            window.addTextToWindow(" and ", Color.BLACK);
-            window.addTextToWindow(getInventory(), Color.RED);
+            window.addTextToWindow(" and ", TextColor.BLACK);
+            window.addTextToWindow(getInventory(), TextColor.RED);
         }
         if(!treasuresIsEmpty()){
-            window.addTextToWindow("\nyou have collected ", Color.BLACK);
-            window.addTextToWindow(getTreasures(), Color.GREEN);
+            window.addTextToWindow("\nyou have collected ", TextColor.BLACK);
+            window.addTextToWindow(getTreasures(), TextColor.GREEN);
         }else{
-            window.addTextToWindow("\nyou have collected ", Color.BLACK);
-            window.addTextToWindow("0 ", Color.GREEN);
-            window.addTextToWindow("treasures", Color.BLACK);
+            window.addTextToWindow("\nyou have collected ", TextColor.BLACK);
+            window.addTextToWindow("0 ", TextColor.GREEN);
+            window.addTextToWindow("treasures", TextColor.BLACK);
         }
     }
 
     /**
-     * Searches kit Array for the index of the specified value.
-     *
-     * @param item String to look for.
-     * @return The index of the item, or -1 if not found.
-     */
-    private int findItemInKit(String item) {
-        for (int i = 0; i < kit.length; i++) {
-            String tmpItem = kit[i];
-
-            if (item.equals(tmpItem)) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
-    /**
-     * Check if the kit is empty - meaning all elements are null.
+     * Check if the kit is empty - meaning no item bit is set.
      *
      * @return true if kit is completely empty.
      */
     private boolean kitIsEmpty() {
-        for (String string : kit) {
-            if (string != null) {
-                return false;
-            }
-        }
-        return true;
+        return kit == 0;
     }
+
     private boolean treasuresIsEmpty() {
-        for (String string : treasures) {
-            if (string != null) {
-                return false;
-            }
-        }
-        return true;
+        return treasures == 0;
     }
 
     /**
-     * Finds the first index where there is a null value.
+     * Adds a treasure to the hunter's collection.
      *
-     * @return index of empty index, or -1 if not found.
+     * @param treasure The treasure found.
      */
-    private int emptyPositionInKit() {
-        for (int i = 0; i < kit.length; i++) {
-            if (kit[i] == null) {
-                return i;
-            }
+    public void addTreasure(Treasure treasure) {
+        if (!hasTreasure(treasure)) {
+            treasures |= treasure.getMask();
+            listener.treasureFound(treasure);
         }
-        return -1;
     }
+
     public void addTreasures(String newTreasure){
-        int idx = emptyPositionInKit();
-        treasures[idx] = newTreasure;
+        Treasure found = Treasure.named(newTreasure);
+        if (found != null) {
+            addTreasure(found);
+        }
     }
-    public String getTreasures() {
-        String printableTreasure = "";
-        String space = " ";
 
-        for (String item : treasures) {
-            if (item != null) {
-                printableTreasure += item + space;
-            }
+    public String getTreasures() {
+        StringBuilder printableTreasure = new StringBuilder();
+        for (long bits = treasures; bits != 0; bits &= bits - 1) {
+            printableTreasure.append(Treasure.byId(Long.numberOfTrailingZeros(bits)).getName()).append(' ');
         }
-        return printableTreasure;
+        return printableTreasure.toString();
     }
+
     public boolean hasAllTreasures(){
-        if(hasItemInTreasureList("crown") && hasItemInTreasureList("gem") && hasItemInTreasureList("trophy")){
-            return true;
-        } else {
-            return false;
-        }
+        return treasures == Treasure.allMask();
     }
-}
\ No newline at end of file
+}
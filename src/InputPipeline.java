@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * InputPipeline Class<br /><br />
+ * Reads lines on a background thread into a bounded queue, so the game never waits on the input itself:
+ * lines typed ahead are already there when the game asks, and a script is read while the game plays it.<p>
+ * Lines travel through the queue in batches. The reader reads whatever input has arrived, splits it into lines
+ * itself and hands over every whole line before it reads again, since the next read may wait for the player.
+ * A line that has only partly arrived (a socket can deliver "b\nswo") is kept back until the rest comes, without
+ * holding up the lines before it. So a player typing one line at a time still gets each line right away, while a
+ * script moves hundreds of lines per hand-over. When the queue is full the reader waits, so a huge script never
+ * piles up in memory.<p>
+ * Lines end the way BufferedReader.readLine() sees them: at "\n", "\r" or "\r\n".
+ */
+
+public final class InputPipeline implements LineSource, AutoCloseable {
+    // constants
+    private static final int BATCH_LINES = 256;
+    private static final int CHUNK_CHARS = 8192;
+    private static final int DEFAULT_BATCHES = 64;
+    private static final String[] END = new String[0];
+
+    // instance variables
+    private final Reader reader;
+    private final BlockingQueue<String[]> queue;
+    private final Thread thread;
+    private volatile IOException failure;
+    private String[] batch = new String[0];
+    private int next;
+    private boolean ended;
+
+    /**
+     * Starts reading.
+     *
+     * @param in Where the lines come from.
+     * @param batches How many batches of lines may wait in the queue.
+     */
+    public InputPipeline(Reader in, int batches) {
+        reader = in;
+        queue = new ArrayBlockingQueue<>(batches);
+        thread = Thread.ofVirtual().name("input-pipeline").start(this::readLines);
+    }
+
+    /**
+     * @param in A stream of UTF-8 text, e.g. System.in.
+     */
+    public static InputPipeline fromStream(InputStream in) {
+        return new InputPipeline(new InputStreamReader(in, StandardCharsets.UTF_8), DEFAULT_BATCHES);
+    }
+
+    /**
+     * @param script A file with one answer per line.
+     */
+    public static InputPipeline fromFile(Path script) throws IOException {
+        return new InputPipeline(Files.newBufferedReader(script, StandardCharsets.UTF_8), DEFAULT_BATCHES);
+    }
+
+    /**
+     * @param socket A connection the player types into.
+     */
+    public static InputPipeline fromSocket(Socket socket) throws IOException {
+        return fromStream(socket.getInputStream());
+    }
+
+    /**
+     * Runs on the background thread until the input ends or the pipeline is closed.
+     */
+    private void readLines() {
+        char[] chunk = new char[CHUNK_CHARS];
+        StringBuilder partial = new StringBuilder(); // the start of a line whose end hasn't arrived yet
+        boolean skipLineFeed = false;                // the last line ended with '\r', which may be half of "\r\n"
+        String[] lines = new String[BATCH_LINES];
+        int count = 0;
+        try {
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    char c = chunk[i];
+                    if (skipLineFeed) {
+                        skipLineFeed = false;
+                        if (c == '\n') {
+                            start = i + 1;
+                            continue;
+                        }
+                    }
+                    if (c == '\n' || c == '\r') {
+                        partial.append(chunk, start, i - start);
+                        lines[count++] = partial.toString();
+                        partial.setLength(0);
+                        if (count == BATCH_LINES) {
+                            queue.put(Arrays.copyOf(lines, count));
+                            count = 0;
+                        }
+                        skipLineFeed = (c == '\r');
+                        start = i + 1;
+                    }
+                }
+                partial.append(chunk, start, read - start);
+                if (count > 0) {
+                    // the next read may wait, so every whole line goes now
+                    queue.put(Arrays.copyOf(lines, count));
+                    count = 0;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return; // closed
+        }
+        try {
+            if (count > 0) {
+                queue.put(Arrays.copyOf(lines, count));
+            }
+            if (partial.length() > 0) {
+                queue.put(new String[] {partial.toString()}); // the last line had no line break
+            }
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // closed while handing over the last lines
+        }
+    }
+
+    public String nextLine() {
+        if (next == batch.length) {
+            if (ended) {
+                throw endOfInput();
+            }
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NoSuchElementException("Interrupted while waiting for input");
+            }
+            next = 0;
+            if (batch == END) {
+                ended = true;
+                throw endOfInput();
+            }
+        }
+        return batch[next++];
+    }
+
+    private NoSuchElementException endOfInput() {
+        NoSuchElementException e = new NoSuchElementException("No more input");
+        if (failure != null) {
+            e.initCause(failure);
+        }
+        return e;
+    }
+
+    /**
+     * Stops the reader and closes the input.
+     */
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        reader.close();
+    }
+}
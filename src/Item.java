@@ -0,0 +1,113 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Item Class<br /><br />
+ * The registry of every item a hunter can carry in their kit.<p>
+ * Each item gets its own bit, so a whole kit fits in a single long: checking, adding and removing an item
+ * is one bitwise operation instead of a scan through an array of Strings.<p>
+ * The items are the ones in the Content file, in the same order, so an item's id is its index there.
+ */
+
+public final class Item {
+    // static variables
+    private static final Item[] REGISTRY = new Item[Long.SIZE];
+    private static final Map<String, Item> BY_NAME = new HashMap<>();
+    private static int registered = 0;
+
+    static {
+        Content content = Content.standard();
+        for (int i = 0; i < content.getItemCount(); i++) {
+            register(content.getItemName(i));
+        }
+    }
+
+    // the items the rules of the game refer to, which every content file must have
+    public static final Item WATER = required("water");
+    public static final Item ROPE = required("rope");
+    public static final Item MACHETE = required("machete");
+    public static final Item HORSE = required("horse");
+    public static final Item BOAT = required("boat");
+    public static final Item BOOTS = required("boots");
+    public static final Item SHOVEL = required("shovel");
+    public static final Item SWORD = required("sword");
+
+    // instance variables
+    private final String name;
+    private final int id;
+    private final long mask;
+
+    private Item(String name, int id) {
+        this.name = name;
+        this.id = id;
+        this.mask = 1L << id;
+    }
+
+    private static Item register(String name) {
+        Item item = new Item(name, registered);
+        REGISTRY[registered] = item;
+        BY_NAME.put(name, item);
+        registered++;
+        return item;
+    }
+
+    private static Item required(String name) {
+        Item item = BY_NAME.get(name);
+        if (item == null) {
+            throw new IllegalStateException("The content file has no " + name + ", which the game needs");
+        }
+        return item;
+    }
+
+    /**
+     * Looks up an item by name, ignoring upper and lower case.
+     *
+     * @param name The name of the item, e.g. "Rope".
+     * @return The item, or null if there is no item with that name.
+     */
+    public static Item named(String name) {
+        Item found = BY_NAME.get(name); // names are registered in lower case, which is how they are usually typed
+        if (found != null) {
+            return found;
+        }
+        for (int i = 0; i < registered; i++) {
+            if (REGISTRY[i].name.equalsIgnoreCase(name)) {
+                return REGISTRY[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param id The id of the item.
+     * @return The item with that id.
+     */
+    public static Item byId(int id) {
+        return REGISTRY[id];
+    }
+
+    /**
+     * @return How many items there are.
+     */
+    public static int count() {
+        return registered;
+    }
+
+    // accessors
+    public String getName() {
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getMask() {
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
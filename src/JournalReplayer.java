@@ -0,0 +1,385 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JournalReplayer Class<br /><br />
+ * Rebuilds the state of games from an EventJournal file without playing them again or rendering any text.<p>
+ * The file is memory-mapped and decoded in one pass; each record is applied to a small ReplayedGame
+ * holding the hunter's gold, kit and treasures and the town they are in.<p>
+ * Every time a journal is opened it starts a new run, and game ids are only unique within a run. Runs are numbered
+ * from 1 in the order they appear in the file; run 0 holds any records written before the first run header.<p>
+ * A mapping can't be bigger than 2 GB, so a bigger journal is mapped one window at a time. A record cut in two by
+ * the end of a window is read again from its start in the next window. A record cut off by the end of the file
+ * is what a crash in the middle of a write leaves behind: replay stops at the last whole record and
+ * getTornBytes() says how much was left over.<p>
+ * Usage: java JournalReplayer journalFile [gameId [run]]
+ */
+
+public class JournalReplayer {
+    // constants
+    private static final int WINDOW_BYTES = Integer.MAX_VALUE;
+    private static final int NO_RUN = -2; // keeps no games, for when only the records' lengths matter
+
+    // instance variables
+    private Path path;
+    private int windowBytes;
+    private long eventsRead;
+    private long tornBytes;
+    private List<Long> runStarts;
+
+    /**
+     * @param path The journal file.
+     */
+    public JournalReplayer(Path path) {
+        this(path, WINDOW_BYTES);
+    }
+
+    /**
+     * @param path The journal file.
+     * @param windowBytes The most bytes to map at once.
+     */
+    JournalReplayer(Path path, int windowBytes) {
+        this.path = path;
+        this.windowBytes = windowBytes;
+        runStarts = new ArrayList<>();
+    }
+
+    public long getEventsRead() {
+        return eventsRead;
+    }
+
+    /**
+     * @return How many bytes at the end of the file didn't make up a whole record in the last replay; 0 if none.
+     */
+    public long getTornBytes() {
+        return tornBytes;
+    }
+
+    /**
+     * @return How many runs the last replay found.
+     */
+    public int getRuns() {
+        return runStarts.size() - 1;
+    }
+
+    /**
+     * @param run A run found by the last replay.
+     * @return When the run started, in milliseconds since 1970, or 0 for run 0.
+     */
+    public long getRunStarted(int run) {
+        return runStarts.get(run);
+    }
+
+    /**
+     * Replays every game in the journal.
+     *
+     * @return The final state of each game, run by run.
+     */
+    public List<ReplayedGame> replayAll() throws IOException {
+        List<ReplayedGame> all = new ArrayList<>();
+        for (Map<Long, ReplayedGame> games : replay(-1, -1)) {
+            all.addAll(games.values());
+        }
+        return all;
+    }
+
+    /**
+     * Replays the games of one run.
+     *
+     * @param run The run, counting from 1.
+     * @return The final state of each game in the run, by game id; empty if there is no such run.
+     */
+    public Map<Long, ReplayedGame> replayRun(int run) throws IOException {
+        return replayRun(run, -1);
+    }
+
+    /**
+     * Replays a single game, skipping over the records of all others.
+     *
+     * @param run The run the game was played in.
+     * @param gameId The game to rebuild.
+     * @return The game's final state, or null if it isn't in the journal.
+     */
+    public ReplayedGame replayGame(int run, long gameId) throws IOException {
+        return replayRun(run, gameId).get(gameId);
+    }
+
+    /**
+     * Reads the whole file without keeping any games.
+     *
+     * @return How long the file is up to the end of its last whole record.
+     */
+    long wholeRecordBytes() throws IOException {
+        replay(NO_RUN, -1);
+        return Files.size(path) - tornBytes;
+    }
+
+    private Map<Long, ReplayedGame> replayRun(int run, long gameId) throws IOException {
+        List<Map<Long, ReplayedGame>> runs = replay(run, gameId);
+        return (run >= 0 && run < runs.size()) ? runs.get(run) : new HashMap<>();
+    }
+
+    /**
+     * @param onlyRun The run to keep games from, or -1 for every run.
+     * @param onlyGame The game to keep, or -1 for every game.
+     * @return The games kept, by game id, for each run.
+     */
+    private List<Map<Long, ReplayedGame>> replay(int onlyRun, long onlyGame) throws IOException {
+        List<Map<Long, ReplayedGame>> runs = new ArrayList<>();
+        runs.add(new LinkedHashMap<>());
+        runStarts.clear();
+        runStarts.add(0L);
+        eventsRead = 0;
+        tornBytes = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = 0;
+            int run = 0;
+            Map<Long, ReplayedGame> games = runs.get(0);
+            ReplayedGame current = null;
+            while (windowStart < size) {
+                long windowEnd = Math.min(size, windowStart + windowBytes);
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+                int recordStart = 0;
+                try {
+                    while (records.hasRemaining()) {
+                        recordStart = records.position();
+                        byte type = records.get();
+                        long gameId = Varint.readUnsigned(records);
+                        if (type == EventJournal.RUN_STARTED) {
+                            long started = Varint.readUnsigned(records);
+                            games = new LinkedHashMap<>();
+                            runs.add(games);
+                            runStarts.add(started);
+                            run++;
+                            current = null;
+                            eventsRead++;
+                            continue;
+                        }
+                        if (current == null || current.gameId != gameId) {
+                            // records come in per-turn batches, so the last game looked up is usually the right one
+                            current = games.get(gameId);
+                            if (current == null) {
+                                current = new ReplayedGame(run, gameId);
+                                if ((onlyRun == -1 || onlyRun == run) && (onlyGame < 0 || onlyGame == gameId)) {
+                                    games.put(gameId, current);
+                                }
+                            }
+                        }
+                        current.apply(type, records);
+                        eventsRead++;
+                    }
+                    recordStart = records.position();
+                } catch (BufferUnderflowException e) {
+                    // the window ended in the middle of a record; apply() changes nothing until it has read every field
+                    if (windowEnd == size) {
+                        tornBytes = size - windowStart - recordStart;
+                        break;
+                    }
+                    if (recordStart == 0) {
+                        throw new IOException("Record at byte " + windowStart + " is bigger than a " + windowBytes + " byte window");
+                    }
+                }
+                windowStart += recordStart;
+            }
+        }
+        return runs;
+    }
+
+    public static void main(String[] args) throws IOException {
+        JournalReplayer replayer = new JournalReplayer(Path.of(args[0]));
+        long start = System.nanoTime();
+        List<ReplayedGame> games = replayer.replayAll();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Replayed %d events from %d games in %d runs in %.3f s (%.0f events/s)%n",
+                replayer.getEventsRead(), games.size(), replayer.getRuns(), seconds, replayer.getEventsRead() / seconds);
+        if (replayer.getTornBytes() > 0) {
+            System.out.println("Ignored " + replayer.getTornBytes() + " bytes of a record cut off at the end of the file.");
+        }
+        if (args.length > 1) {
+            long gameId = Long.parseLong(args[1]);
+            int run = (args.length > 2) ? Integer.parseInt(args[2]) : replayer.getRuns();
+            ReplayedGame game = null;
+            for (ReplayedGame g : games) {
+                if (g.run == run && g.gameId == gameId) {
+                    game = g;
+                }
+            }
+            System.out.println((game == null) ? "No such game." : game.infoString());
+        }
+    }
+
+    /**
+     * The state of one game as rebuilt from its records.
+     */
+    public static class ReplayedGame {
+        private int run;
+        private long gameId;
+        private String hunterName;
+        private String mode;
+        private int gold;
+        private long kitMask;
+        private long treasureMask;
+        private String terrainName;
+        private boolean toughTown;
+        private int towns;
+        private int commands;
+        private int randomDraws;
+        private boolean ended;
+        private boolean won;
+
+        ReplayedGame(int run, long gameId) {
+            this.run = run;
+            this.gameId = gameId;
+        }
+
+        /**
+         * Decodes the fields of one record and applies them. Every field is read before anything changes,
+         * so a record cut off partway through leaves the game as it was.
+         */
+        void apply(byte type, ByteBuffer records) {
+            long item;
+            switch (type) {
+                case EventJournal.GAME_STARTED:
+                    String name = Varint.readString(records);
+                    String modeName = Varint.readString(records);
+                    long startingGold = Varint.readUnsigned(records);
+                    long kit = Varint.readUnsigned(records);
+                    treasureMask = Varint.readUnsigned(records);
+                    hunterName = name;
+                    mode = modeName;
+                    gold = (int) startingGold;
+                    kitMask = kit;
+                    break;
+                case EventJournal.COMMAND:
+                    Varint.readString(records);
+                    commands++;
+                    break;
+                case EventJournal.RANDOM_DOUBLE:
+                    records.getLong();
+                    randomDraws++;
+                    break;
+                case EventJournal.RANDOM_INT:
+                    Varint.readUnsigned(records);
+                    Varint.readUnsigned(records);
+                    randomDraws++;
+                    break;
+                case EventJournal.RANDOM_LONG:
+                    records.getLong();
+                    randomDraws++;
+                    break;
+                case EventJournal.GOLD_CHANGED:
+                    Varint.readSigned(records);
+                    gold = (int) Varint.readUnsigned(records);
+                    break;
+                case EventJournal.ITEM_BOUGHT:
+                    item = Varint.readUnsigned(records);
+                    Varint.readUnsigned(records);
+                    kitMask |= 1L << item;
+                    break;
+                case EventJournal.ITEM_SOLD:
+                    item = Varint.readUnsigned(records);
+                    Varint.readUnsigned(records);
+                    kitMask &= ~(1L << item);
+                    break;
+                case EventJournal.ITEM_LOST:
+                    kitMask &= ~(1L << Varint.readUnsigned(records));
+                    break;
+                case EventJournal.TREASURE_FOUND:
+                    treasureMask |= 1L << Varint.readUnsigned(records);
+                    break;
+                case EventJournal.TOWN_ENTERED:
+                    String terrain = Varint.readString(records);
+                    Varint.readUnsigned(records);
+                    toughTown = records.get() != 0;
+                    terrainName = terrain;
+                    towns++;
+                    break;
+                case EventJournal.GAME_ENDED:
+                    won = records.get() != 0;
+                    ended = true;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown record type " + type + " at byte " + (records.position() - 1));
+            }
+        }
+
+        // accessors
+        public int getRun() {
+            return run;
+        }
+
+        public long getGameId() {
+            return gameId;
+        }
+
+        public String getHunterName() {
+            return hunterName;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public int getGold() {
+            return gold;
+        }
+
+        public long getKitMask() {
+            return kitMask;
+        }
+
+        public long getTreasureMask() {
+            return treasureMask;
+        }
+
+        public String getTerrainName() {
+            return terrainName;
+        }
+
+        public boolean isToughTown() {
+            return toughTown;
+        }
+
+        public int getCommands() {
+            return commands;
+        }
+
+        public boolean isEnded() {
+            return ended;
+        }
+
+        public boolean isWon() {
+            return won;
+        }
+
+        /**
+         * @return A printable summary of the game's final state.
+         */
+        public String infoString() {
+            StringBuilder kit = new StringBuilder();
+            for (long bits = kitMask; bits != 0; bits &= bits - 1) {
+                kit.append(Item.byId(Long.numberOfTrailingZeros(bits)).getName()).append(' ');
+            }
+            StringBuilder found = new StringBuilder();
+            for (long bits = treasureMask; bits != 0; bits &= bits - 1) {
+                found.append(Treasure.byId(Long.numberOfTrailingZeros(bits)).getName()).append(' ');
+            }
+            return "Game " + gameId + " of run " + run + ": " + hunterName + " (" + mode + ") has " + gold + " gold, kit [" + kit.toString().trim()
+                    + "], treasures [" + found.toString().trim() + "], in a " + (toughTown ? "tough" : "sleepy") + " town by the "
+                    + terrainName + " after " + commands + " commands, " + towns + " towns and " + randomDraws + " rolls"
+                    + (ended ? (won ? "; won." : "; lost.") : "; still playing.");
+        }
+    }
+}
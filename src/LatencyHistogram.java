@@ -0,0 +1,109 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram Class<br /><br />
+ * Counts how long something took, in nanoseconds, in a fixed number of buckets that never grows.<p>
+ * Times under 16 ns get a bucket each; after that every power of two is split into four buckets,
+ * so a percentile read back is never more than 25% above the real one.
+ * Recording is lock-free, so any number of threads can record into the same histogram. Every bucket is a LongAdder:
+ * the few buckets that nearly every recording lands in would otherwise be one memory word that every core fights over,
+ * where a LongAdder gives each contending thread a counter of its own and only adds them up when a percentile is read.
+ */
+
+public final class LatencyHistogram {
+    // constants
+    private static final int EXACT = 16;
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_POWER = 4; // 2^4 == EXACT
+    private static final int BUCKETS = EXACT + (Long.SIZE - 1 - FIRST_POWER) * SUB_BUCKETS;
+
+    // instance variables
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos How long it took.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[bucketOf(nanos)].increment();
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos < EXACT) {
+            return (int) nanos;
+        }
+        int power = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (power - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT + (power - FIRST_POWER) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return The largest time that lands in a bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < EXACT) {
+            return bucket;
+        }
+        int power = (bucket - EXACT) / SUB_BUCKETS + FIRST_POWER;
+        int sub = (bucket - EXACT) % SUB_BUCKETS;
+        long width = 1L << (power - SUB_BUCKET_BITS);
+        return (1L << power) + (sub + 1) * width - 1;
+    }
+
+    // accessors
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public long getMeanNanos() {
+        long n = count.sum();
+        return (n == 0) ? 0 : total.sum() / n;
+    }
+
+    /**
+     * @param fraction Between 0 and 1, e.g. 0.99 for the 99th percentile.
+     * @return The time that fraction of the recordings took at most, rounded up to the end of its bucket.
+     */
+    public long getPercentile(double fraction) {
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+        }
+        if (seen == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * seen);
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            sum += buckets[i].sum();
+            if (sum >= rank && sum > 0) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+}
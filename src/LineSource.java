@@ -0,0 +1,15 @@
+/**
+ * LineSource Interface<br /><br />
+ * Where a player's typed answers come from, one line at a time: the keyboard, a script file or a connection.
+ */
+
+public interface LineSource {
+
+    /**
+     * Waits for the next line.
+     *
+     * @return The line, without its line ending.
+     * @throws java.util.NoSuchElementException if there are no more lines.
+     */
+    String nextLine();
+}
@@ -0,0 +1,160 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * LoadClient Class<br /><br />
+ * Plays many games against a GameServer at once, to see how many sessions it can carry.<p>
+ * Each simulated player runs on its own virtual thread, sends menu commands, and times how long it takes
+ * until the next menu prompt (or the end of the game) comes back.
+ * At the end it prints sessions per second and the latency percentiles of each command.<p>
+ * Usage: java LoadClient [port] [sessions] [commands per session] [concurrent sessions]
+ */
+
+public class LoadClient {
+    // constants
+    private static final String COMMANDS = "elhdm"; // menu moves that don't wait for more input
+    private static final byte[] PROMPT = "What's your next move? ".getBytes(StandardCharsets.UTF_8);
+
+    // instance variables
+    private int port;
+    private long[][] latencies; // nanoseconds, one row per command
+    private int[] counts;
+    private long commandsSent;
+
+    /**
+     * @param port The port the server is listening on.
+     */
+    public LoadClient(int port) {
+        this.port = port;
+        latencies = new long[COMMANDS.length()][1024];
+        counts = new int[COMMANDS.length()];
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+        int sessions = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+        int commands = (args.length > 2) ? Integer.parseInt(args[2]) : 50;
+        int concurrency = (args.length > 3) ? Integer.parseInt(args[3]) : 1000;
+
+        LoadClient client = new LoadClient(port);
+        long start = System.nanoTime();
+        client.run(sessions, commands, concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d sessions in %.2f s: %.0f sessions/s, %.0f commands/s%n",
+                sessions, seconds, sessions / seconds, client.commandsSent / seconds);
+        System.out.print(client.infoString());
+    }
+
+    /**
+     * Plays the sessions, keeping at most the given number connected at once.
+     */
+    public void run(int sessions, int commandsPerSession, int concurrency) throws InterruptedException {
+        Semaphore slots = new Semaphore(concurrency);
+        try (ExecutorService players = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                slots.acquire();
+                long seed = i;
+                players.execute(() -> {
+                    try {
+                        playSession(commandsPerSession, new SplittableRandom(seed));
+                    } catch (IOException e) {
+                        System.err.println("Session failed: " + e.getMessage());
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Plays one game: answers the name and mode questions, then sends random menu commands.
+     */
+    private void playSession(int commands, SplittableRandom random) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            out.write("loadbot\nn\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            boolean playing = awaitPrompt(in);
+
+            long[] sessionLatencies = new long[commands];
+            int[] sessionCommands = new int[commands];
+            int sent = 0;
+            while (playing && sent < commands) {
+                int command = random.nextInt(COMMANDS.length());
+                long start = System.nanoTime();
+                out.write(COMMANDS.charAt(command));
+                out.write('\n');
+                out.flush();
+                playing = awaitPrompt(in);
+                sessionLatencies[sent] = System.nanoTime() - start;
+                sessionCommands[sent] = command;
+                sent++;
+            }
+            record(sessionCommands, sessionLatencies, sent);
+        }
+    }
+
+    /**
+     * Reads until the menu prompt shows up.
+     *
+     * @return true if the prompt arrived, false if the game ended and the server hung up.
+     */
+    private static boolean awaitPrompt(InputStream in) throws IOException {
+        int matched = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == PROMPT[matched]) {
+                matched++;
+                if (matched == PROMPT.length) {
+                    return true;
+                }
+            } else {
+                matched = (b == PROMPT[0]) ? 1 : 0;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void record(int[] commands, long[] nanos, int sent) {
+        for (int i = 0; i < sent; i++) {
+            int command = commands[i];
+            if (counts[command] == latencies[command].length) {
+                latencies[command] = Arrays.copyOf(latencies[command], counts[command] * 2);
+            }
+            latencies[command][counts[command]++] = nanos[i];
+        }
+        commandsSent += sent;
+    }
+
+    /**
+     * @return A table of the latency percentiles of each command, in microseconds.
+     */
+    public synchronized String infoString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-8s %10s %10s %10s %10s%n", "command", "count", "mean us", "p50 us", "p99 us"));
+        for (int c = 0; c < COMMANDS.length(); c++) {
+            if (counts[c] == 0) {
+                continue;
+            }
+            long[] sorted = Arrays.copyOf(latencies[c], counts[c]);
+            Arrays.sort(sorted);
+            double mean = Arrays.stream(sorted).average().orElse(0);
+            sb.append(String.format("%-8s %10d %10.1f %10.1f %10.1f%n", COMMANDS.charAt(c), counts[c], mean / 1e3,
+                    sorted[(int) (0.50 * (counts[c] - 1))] / 1e3, sorted[(int) (0.99 * (counts[c] - 1))] / 1e3));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * The NullRenderer throws all text away. It is used for headless runs such as simulations and soak tests.
+ */
+
+public final class NullRenderer implements GameRenderer {
+    // static variables
+    public static final NullRenderer INSTANCE = new NullRenderer();
+
+    private NullRenderer() {
+    }
+
+    public void addTextToWindow(String text, TextColor color) {
+    }
+
+    public void clear() {
+    }
+}
@@ -0,0 +1,302 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * PolicySolver Class<br /><br />
+ * Works out the move that gives the best chance of collecting every treasure from every state of the game,
+ * by value iteration over the whole state space (see PolicyTable for what a state is).<p>
+ * Each sweep updates the values in place (Gauss-Seidel), so a new value is used as soon as it is known,
+ * and the states are split into ranges that are swept in parallel with fork-join.
+ * Sweeps repeat until no value moves by more than epsilon.<p>
+ * The model follows the rules in Town and TreasureHunter, with the odds taken from the mode, and a few simplifications:
+ * <ul>
+ *     <li>gold above the cap counts as the cap, so the values are slightly pessimistic for rich hunters;</li>
+ *     <li>the next town is drawn fresh, the way the world generates towns, rather than from the roads of the real world;</li>
+ *     <li>there is no turn limit, and looking for trouble is valued as if trouble turns up (it always does eventually);</li>
+ *     <li>the shop only sells what it lists, so the sword is only for sale in samurai mode.</li>
+ * </ul>
+ */
+
+public class PolicySolver {
+    // constants
+    private static final int STATES_PER_TASK = 1 << 14;
+    private static final float SHOP_MARGIN = 1e-6f; // a trip to the shop has to beat a real move by this much
+    private static final Item[] STOCK = PriceTable.stock(false);
+
+    // instance variables
+    private final GameMode mode;
+    private final int goldCap;
+    private final PriceTable prices;
+    private final ForkJoinPool pool;
+    private final float[] values;
+    private final byte[] actions;
+    private final int[] neededItems;
+    private final long allTreasures;
+    private final long treasureMask;
+    private final long kitMask;
+    private final double breakChance;
+    private final long[] huntMasks;   // what each outcome of a hunt adds to the treasures
+    private final float[] huntOdds;
+    private final double[] terrainOdds;
+    private int sweeps;
+
+    /**
+     * @param mode The game mode to solve.
+     * @param goldCap The most gold told apart.
+     */
+    public PolicySolver(GameMode mode, int goldCap) {
+        this(mode, goldCap, ForkJoinPool.commonPool());
+    }
+
+    public PolicySolver(GameMode mode, int goldCap, ForkJoinPool pool) {
+        this.mode = mode;
+        this.goldCap = goldCap;
+        this.pool = pool;
+        prices = PriceTable.standard(mode.getMarkdown());
+        values = new float[PolicyTable.stateCount(goldCap)];
+        actions = new byte[values.length];
+        neededItems = new int[Town.getTerrainCount()];
+        for (int i = 0; i < neededItems.length; i++) {
+            neededItems[i] = Town.getTerrainByIndex(i).getNeededItemType().getId();
+        }
+        allTreasures = Treasure.allMask();
+        treasureMask = (1L << Treasure.count()) - 1;
+        kitMask = (1L << Item.count()) - 1;
+        breakChance = mode.getItemBreakOdds().getOdds(GameMode.ITEM_BROKEN);
+        AliasTable treasureOdds = mode.getTreasureOdds();
+        huntMasks = new long[treasureOdds.size()];
+        huntOdds = new float[treasureOdds.size()];
+        for (int i = 0; i < huntMasks.length; i++) {
+            Treasure treasure = Treasure.named(Town.getTreasureName(i));
+            huntMasks[i] = (treasure == null) ? 0 : treasure.getMask(); // dust finds nothing
+            huntOdds[i] = (float) treasureOdds.getOdds(i);
+        }
+        terrainOdds = new double[Town.getTerrainCount()];
+        for (int i = 0; i < terrainOdds.length; i++) {
+            terrainOdds[i] = mode.getTerrainOdds().getOdds(i);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (((i >>> 3) & treasureMask) == allTreasures) {
+                values[i] = 1;
+            }
+        }
+    }
+
+    /**
+     * Sweeps until the values settle.
+     *
+     * @param epsilon The largest change in any value that still counts as settled.
+     * @return The solved table.
+     */
+    public PolicyTable solve(double epsilon) {
+        float delta;
+        do {
+            delta = pool.invoke(new SweepTask(0, values.length));
+            sweeps++;
+        } while (delta > epsilon);
+        return new PolicyTable(mode, goldCap, values, actions);
+    }
+
+    public int getSweeps() {
+        return sweeps;
+    }
+
+    /**
+     * Works out the best action in one state, stores it, and returns the new value.
+     */
+    private float update(int state) {
+        boolean dug = (state & 1) != 0;
+        boolean hunted = (state & 2) != 0;
+        boolean tough = (state & 4) != 0;
+        long treasures = (state >>> 3) & treasureMask;
+        long kit = (state >>> PolicyTable.KIT_SHIFT) & kitMask;
+        int top = state >>> PolicyTable.GOLD_SHIFT;
+        int terrain = top % Town.getTerrainCount();
+        int gold = top / Town.getTerrainCount();
+        if (gold == 0 || treasures == allTreasures) {
+            return values[state];
+        }
+        int flags = state & 7;
+        // the same state without the gold, which valueAt() puts back
+        int sameTown = (terrain << PolicyTable.GOLD_SHIFT) | (int) (kit << PolicyTable.KIT_SHIFT) | (int) (treasures << 3) | flags;
+        boolean hasSword = (kit & Item.SWORD.getMask()) != 0;
+        boolean freeShop = mode.isSamurai() && hasSword;
+
+        float best = 0;
+        int action = PolicyTable.NONE;
+
+        if (!hunted) {
+            int after = sameTown | 2;
+            float value = 0;
+            for (int i = 0; i < huntMasks.length; i++) {
+                value += huntOdds[i] * valueAt(gold, after | (int) (huntMasks[i] << 3));
+            }
+            if (value > best) {
+                best = value;
+                action = PolicyTable.HUNT;
+            }
+        }
+        if (!dug && (kit & Item.SHOVEL.getMask()) != 0) {
+            int after = sameTown | 1;
+            double value = (1 - TreasureHunter.DIG_CHANCE) * valueAt(gold, after);
+            for (int found = 1; found <= TreasureHunter.MAX_DIG_GOLD; found++) {
+                value += TreasureHunter.DIG_CHANCE / TreasureHunter.MAX_DIG_GOLD * valueAt(gold + found, after);
+            }
+            if (value > best) {
+                best = (float) value;
+                action = PolicyTable.DIG;
+            }
+        }
+        long needed = 1L << neededItems[terrain];
+        if ((kit & needed) != 0) {
+            double value = (1 - breakChance) * newTownValue(gold, kit, treasures)
+                    + breakChance * newTownValue(gold, kit & ~needed, treasures);
+            if (value > best) {
+                best = (float) value;
+                action = PolicyTable.MOVE;
+            }
+        }
+        // finding no fight leaves everything as it was, so the brawl is valued given that one turns up
+        AliasTable brawl = mode.getBrawlOdds(tough);
+        double trouble = 0;
+        for (int diff = 1; diff <= Town.MAX_BRAWL_GOLD; diff++) {
+            double lose = brawl.getOdds(Town.MAX_BRAWL_GOLD + diff);
+            double win = brawl.getOdds(diff) + (hasSword ? lose : 0);
+            trouble += win * valueAt(gold + diff, sameTown);
+            if (gold > diff && !hasSword) {
+                trouble += lose * valueAt(gold - diff, sameTown);
+            }
+        }
+        trouble /= 1 - brawl.getOdds(0);
+        if (brawl.getOdds(0) < 1 && trouble > best) {
+            best = (float) trouble;
+            action = PolicyTable.TROUBLE;
+        }
+
+        float shopBest = best + SHOP_MARGIN;
+        for (Item item : STOCK) {
+            if ((kit & item.getMask()) == 0) {
+                int cost = freeShop ? 0 : prices.getBuyPrice(item);
+                // spending the last gold piece ends the game
+                if (cost < gold) {
+                    float value = valueAt(gold - cost, sameTown | (int) (item.getMask() << PolicyTable.KIT_SHIFT));
+                    if (value > shopBest) {
+                        shopBest = value;
+                        best = value;
+                        action = PolicyTable.BUY | item.getId();
+                    }
+                }
+            } else {
+                int price = freeShop ? 0 : prices.getSellPrice(item);
+                if (price > 0) {
+                    float value = valueAt(gold + price, sameTown & ~(int) (item.getMask() << PolicyTable.KIT_SHIFT));
+                    if (value > shopBest) {
+                        shopBest = value;
+                        best = value;
+                        action = PolicyTable.SELL | item.getId();
+                    }
+                }
+            }
+        }
+        if (mode.isSamurai() && !hasSword) {
+            float value = valueAt(gold, sameTown | (int) (Item.SWORD.getMask() << PolicyTable.KIT_SHIFT));
+            if (value > shopBest) {
+                best = value;
+                action = PolicyTable.BUY | Item.SWORD.getId();
+            }
+        }
+
+        values[state] = best;
+        actions[state] = (byte) action;
+        return best;
+    }
+
+    /**
+     * @param gold The gold after the move, which may be past the cap.
+     * @param rest The terrain, kit, treasure and flag bits of the state.
+     */
+    private float valueAt(int gold, int rest) {
+        return values[(Math.min(gold, goldCap) * Town.getTerrainCount() << PolicyTable.GOLD_SHIFT) + rest];
+    }
+
+    /**
+     * The value of arriving in a town nobody has seen yet: any terrain, tough with the mode's toughness.
+     */
+    private double newTownValue(int gold, long kit, long treasures) {
+        int rest = (int) (kit << PolicyTable.KIT_SHIFT) | (int) (treasures << 3);
+        double toughness = mode.getToughness();
+        double value = 0;
+        for (int terrain = 0; terrain < terrainOdds.length; terrain++) {
+            int town = (terrain << PolicyTable.GOLD_SHIFT) | rest;
+            value += terrainOdds[terrain] * (toughness * valueAt(gold, town | 4) + (1 - toughness) * valueAt(gold, town));
+        }
+        return value;
+    }
+
+    /**
+     * Sweeps a range of states, from the top down, and returns the biggest change in value.<p>
+     * States with more treasures sit higher, so going down uses the freshest values first.
+     */
+    private class SweepTask extends RecursiveTask<Float> {
+        private int from;
+        private int to;
+
+        SweepTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Float compute() {
+            if (to - from <= STATES_PER_TASK) {
+                float delta = 0;
+                for (int state = to - 1; state >= from; state--) {
+                    float old = values[state];
+                    delta = Math.max(delta, Math.abs(update(state) - old));
+                }
+                return delta;
+            }
+            int middle = (from + to) >>> 1;
+            SweepTask low = new SweepTask(from, middle);
+            low.fork();
+            float delta = new SweepTask(middle, to).compute();
+            return Math.max(delta, low.join());
+        }
+    }
+
+    /**
+     * Usage: java PolicySolver [easy|normal|hard|samurai] [goldCap] [epsilon] [tableFile|-] [games]<p>
+     * Solves one mode, prints the chance of winning a new game, then plays some games with the table
+     * to check the prediction.
+     */
+    public static void main(String[] args) throws IOException {
+        GameMode mode = GameMode.named((args.length > 0) ? args[0] : "normal");
+        int goldCap = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+        double epsilon = (args.length > 2) ? Double.parseDouble(args[2]) : 1e-5;
+        long games = (args.length > 4) ? Long.parseLong(args[4]) : 10000;
+
+        PolicySolver solver = new PolicySolver(mode, goldCap);
+        long start = System.nanoTime();
+        PolicyTable table = solver.solve(epsilon);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Solved %s mode: %,d states, %d sweeps in %.1f s%n", mode.getName(), table.size(),
+                solver.getSweeps(), elapsed / 1e9);
+        System.out.printf("Best chance of winning a new game: %.2f%%%n", table.getStartingValue() * 100);
+        if (args.length > 3 && !args[3].equals("-")) {
+            table.save(Path.of(args[3]));
+            System.out.println("Saved the table to " + args[3]);
+        }
+
+        int wins = 0;
+        for (long i = 0; i < games; i++) {
+            TreasureHunter game = new TreasureHunter(new PolicyStrategy(table), NullRenderer.INSTANCE, GameRandom.forGame(start, i));
+            game.setTurnLimit(100000);
+            if (game.play().isWon()) {
+                wins++;
+            }
+        }
+        System.out.printf("Won %d of %d games played with the table (%.2f%%)%n", wins, games, 100.0 * wins / games);
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * The PolicyStrategy plays by a PolicyTable: in every state it makes the move the PolicySolver worked out
+ * as the best one.<p>
+ * If the table keeps sending the hunter back to the shop (which can happen when two trips are worth exactly
+ * the same), it looks for trouble instead so the game keeps moving.
+ */
+
+public class PolicyStrategy implements Strategy {
+    // constants
+    private static final int MAX_SHOP_TRIPS = 2 * Item.count();
+
+    // instance variables
+    private PolicyTable table;
+    private String item;
+    private int shopTrips;
+
+    /**
+     * @param table The solved table for the mode to play.
+     */
+    public PolicyStrategy(PolicyTable table) {
+        this.table = table;
+        item = "";
+        shopTrips = 0;
+    }
+
+    public String chooseName() {
+        return "solver";
+    }
+
+    public String chooseMode() {
+        return table.getMode().getAnswer();
+    }
+
+    public String chooseMove(TreasureHunter game) {
+        int index = table.indexOf(game);
+        int action = (index < 0) ? PolicyTable.TROUBLE : table.getAction(index);
+        if ((action & (PolicyTable.BUY | PolicyTable.SELL)) != 0 && shopTrips < MAX_SHOP_TRIPS) {
+            shopTrips++;
+            item = Item.byId(action & 0x3F).getName();
+            return ((action & PolicyTable.SELL) != 0) ? "s" : "b";
+        }
+        shopTrips = 0;
+        if (action == PolicyTable.HUNT) {
+            return "h";
+        } else if (action == PolicyTable.DIG) {
+            return "d";
+        } else if (action == PolicyTable.MOVE) {
+            return "m";
+        }
+        return "l";
+    }
+
+    public String chooseItemToBuy(Hunter customer) {
+        return item;
+    }
+
+    public String chooseItemToSell(Hunter customer) {
+        return item;
+    }
+
+    public boolean confirm(Hunter customer, String item, int price) {
+        // the table only goes to the shop for deals it wants
+        return true;
+    }
+}
@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PolicyTable Class<br /><br />
+ * The best move in every state of one game mode, worked out by the PolicySolver, together with the chance
+ * of winning from that state when the best moves are played.<p>
+ * A state is the hunter's gold (capped), the terrain around the town, the kit and treasures bitmasks,
+ * whether the town is tough, and whether it has been hunted and dug. Each state is packed into an int index:
+ * gold and terrain on top, then the kit bits, the treasure bits and the three town flags.<p>
+ * Tables are saved as the magic bytes "THP", a version byte, the mode and its odds, the gold cap, then every value
+ * and action.
+ */
+
+public final class PolicyTable {
+    // constants
+    private static final byte[] MAGIC = {'T', 'H', 'P'};
+    public static final byte VERSION = 1;
+    public static final byte NONE = 0;
+    public static final byte HUNT = 1;
+    public static final byte DIG = 2;
+    public static final byte MOVE = 3;
+    public static final byte TROUBLE = 4;
+    public static final int BUY = 0x40;
+    public static final int SELL = 0x80;
+    private static final int ITEM_BITS = Item.count();
+    private static final int TREASURE_BITS = Treasure.count();
+    static final int KIT_SHIFT = TREASURE_BITS + 3;
+    static final int GOLD_SHIFT = ITEM_BITS + KIT_SHIFT;
+
+    // instance variables
+    private final GameMode mode;
+    private final int goldCap;
+    private final float[] values;
+    private final byte[] actions;
+
+    PolicyTable(GameMode mode, int goldCap, float[] values, byte[] actions) {
+        this.mode = mode;
+        this.goldCap = goldCap;
+        this.values = values;
+        this.actions = actions;
+    }
+
+    /**
+     * @param goldCap The most gold told apart; anything above counts as the cap.
+     * @return How many states a table with that cap holds.
+     */
+    public static int stateCount(int goldCap) {
+        long count = ((long) (goldCap + 1) * Town.getTerrainCount()) << GOLD_SHIFT;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Gold cap too large: " + goldCap);
+        }
+        return (int) count;
+    }
+
+    /**
+     * Packs a state into its index. The gold must already be capped.
+     */
+    static int index(int gold, int terrain, long kit, long treasures, boolean tough, boolean hunted, boolean dug) {
+        int index = (gold * Town.getTerrainCount() + terrain) << GOLD_SHIFT;
+        index |= (int) kit << KIT_SHIFT;
+        index |= (int) treasures << 3;
+        if (tough) {
+            index |= 4;
+        }
+        if (hunted) {
+            index |= 2;
+        }
+        if (dug) {
+            index |= 1;
+        }
+        return index;
+    }
+
+    /**
+     * @param game A game in progress.
+     * @return The index of the state it is in, or -1 if the current town's terrain isn't a standard one.
+     */
+    public int indexOf(TreasureHunter game) {
+        Hunter hunter = game.getHunter();
+        Town town = game.getCurrentTown();
+        int terrain = Town.getTerrainIndex(town.getTerrain());
+        if (terrain < 0) {
+            return -1;
+        }
+        int gold = Math.max(0, Math.min(hunter.getGold(), goldCap));
+        return index(gold, terrain, hunter.getKitMask(), hunter.getTreasureMask(), town.isToughTown(),
+                game.hasSearchedTown(), game.hasDugTown());
+    }
+
+    // accessors
+    public GameMode getMode() {
+        return mode;
+    }
+
+    public int getGoldCap() {
+        return goldCap;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @param index A state index.
+     * @return The chance of winning from that state by following the table.
+     */
+    public float getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param index A state index.
+     * @return The best action: NONE, HUNT, DIG, MOVE, TROUBLE, or BUY or SELL or'd with an item id.
+     */
+    public int getAction(int index) {
+        return actions[index] & 0xFF;
+    }
+
+    /**
+     * The chance of winning a new game: the starting gold, an empty kit, and a first town drawn the way
+     * the world draws them.
+     *
+     * @return The chance of winning a fresh game by following the table.
+     */
+    public double getStartingValue() {
+        int gold = Math.min(mode.getStartingGold(), goldCap);
+        double value = 0;
+        for (int terrain = 0; terrain < Town.getTerrainCount(); terrain++) {
+            value += mode.getToughness() * values[index(gold, terrain, 0, 0, true, false, false)];
+            value += (1 - mode.getToughness()) * values[index(gold, terrain, 0, 0, false, false, false)];
+        }
+        return value / Town.getTerrainCount();
+    }
+
+    /**
+     * @param action An action from getAction().
+     * @return A short description, e.g. "buy horse".
+     */
+    public static String describe(int action) {
+        if ((action & SELL) != 0) {
+            return "sell " + Item.byId(action & 0x3F).getName();
+        } else if ((action & BUY) != 0) {
+            return "buy " + Item.byId(action & 0x3F).getName();
+        } else if (action == HUNT) {
+            return "hunt";
+        } else if (action == DIG) {
+            return "dig";
+        } else if (action == MOVE) {
+            return "move";
+        } else if (action == TROUBLE) {
+            return "look for trouble";
+        }
+        return "none";
+    }
+
+    /**
+     * Writes the table to a file, replacing whatever was there.
+     *
+     * @param path The file to write.
+     */
+    public void save(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            buffer.put(MAGIC).put(VERSION);
+            Varint.writeString(buffer, mode.getName());
+            buffer.putDouble(mode.getMarkdown()).putDouble(mode.getToughness()).putInt(mode.getStartingGold());
+            buffer.put((byte) (mode.hasItemProtection() ? 1 : 0)).put((byte) (mode.isSamurai() ? 1 : 0));
+            putOdds(buffer, mode.getTerrainOdds());
+            putOdds(buffer, mode.getTreasureOdds());
+            buffer.putDouble(mode.getToughTroubleChance()).putDouble(mode.getSleepyTroubleChance())
+                    .putDouble(mode.getItemBreakChance());
+            buffer.putInt(goldCap).putInt(values.length);
+            for (int i = 0; i < values.length; i++) {
+                if (buffer.remaining() < Float.BYTES + 1) {
+                    drain(buffer, channel);
+                }
+                buffer.putFloat(values[i]).put(actions[i]);
+            }
+            drain(buffer, channel);
+        }
+    }
+
+    private static void putOdds(ByteBuffer buffer, AliasTable odds) {
+        buffer.putInt(odds.size());
+        for (int i = 0; i < odds.size(); i++) {
+            buffer.putDouble(odds.getOdds(i));
+        }
+    }
+
+    private static double[] getOdds(ByteBuffer buffer) {
+        double[] odds = new double[buffer.getInt()];
+        for (int i = 0; i < odds.length; i++) {
+            odds[i] = buffer.getDouble();
+        }
+        return odds;
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads a table written by save().
+     *
+     * @param path The file to read.
+     * @return The table.
+     */
+    public static PolicyTable load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IOException("Not a policy table: " + path);
+                }
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported policy table version " + version);
+            }
+            String name = Varint.readString(buffer);
+            double markdown = buffer.getDouble();
+            double toughness = buffer.getDouble();
+            int startingGold = buffer.getInt();
+            boolean itemProtection = buffer.get() != 0;
+            boolean samurai = buffer.get() != 0;
+            double[] terrainWeights = getOdds(buffer);
+            double[] treasureWeights = getOdds(buffer);
+            GameMode mode = new GameMode(name, markdown, toughness, startingGold, itemProtection, samurai, terrainWeights,
+                    treasureWeights, buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            int goldCap = buffer.getInt();
+            int count = buffer.getInt();
+            if (count != stateCount(goldCap)) {
+                throw new IOException("Policy table was built for different items or terrains");
+            }
+            float[] values = new float[count];
+            byte[] actions = new byte[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = buffer.getFloat();
+                actions[i] = buffer.get();
+            }
+            return new PolicyTable(mode, goldCap, values, actions);
+        }
+    }
+}
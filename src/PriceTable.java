@@ -0,0 +1,170 @@
+import java.util.Arrays;
+
+/**
+ * PriceTable Class<br /><br />
+ * The prices of every Item in a shop, indexed by item id.<p>
+ * A PriceTable never changes once built: buy prices and the buy-back prices after the markdown are worked out
+ * in the constructor, and a price change makes a new table with a higher version number.
+ * Because of that, the listing printed in the shop is built once per table and then reused.<p>
+ * The standard prices, and which items are only for sale in samurai mode, come from the Content file.
+ */
+
+public final class PriceTable {
+    // constants
+    private static final Item[] STOCK = stock(false);
+    private static final Item[] SAMURAI_STOCK = stock(true);
+    private static final long SAMURAI_ONLY_MASK = maskOf(SAMURAI_STOCK);
+
+    // instance variables
+    private final int[] buyPrices;
+    private final int[] sellPrices;
+    private final double markdown;
+    private final int version;
+    private String listing;
+    private String listingWithSword;
+    private PriceTable free;
+
+    private PriceTable(int[] buyPrices, double markdown, int version) {
+        this.buyPrices = buyPrices;
+        this.markdown = markdown;
+        this.version = version;
+        sellPrices = new int[buyPrices.length];
+        for (int i = 0; i < buyPrices.length; i++) {
+            sellPrices[i] = (int) (buyPrices[i] * markdown);
+        }
+    }
+
+    /**
+     * Builds the prices every shop starts with.
+     *
+     * @param markdown Percentage of the price paid back when an item is sold, in decimal format.
+     * @return The standard price table.
+     */
+    public static PriceTable standard(double markdown) {
+        Content content = Content.standard();
+        int[] prices = new int[Item.count()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = content.getItemPrice(i);
+        }
+        return new PriceTable(prices, markdown, 0);
+    }
+
+    /**
+     * @param samuraiOnly true for the items only sold in samurai mode, false for everything else.
+     * @return Those items, in the order of the content file.
+     */
+    static Item[] stock(boolean samuraiOnly) {
+        Content content = Content.standard();
+        int count = 0;
+        Item[] items = new Item[Item.count()];
+        for (int i = 0; i < items.length; i++) {
+            if (content.isSamuraiOnly(i) == samuraiOnly) {
+                items[count++] = Item.byId(i);
+            }
+        }
+        return Arrays.copyOf(items, count);
+    }
+
+    private static long maskOf(Item[] items) {
+        long mask = 0;
+        for (Item item : items) {
+            mask |= item.getMask();
+        }
+        return mask;
+    }
+
+    /**
+     * Read on every purchase, so it is worked out once from the content file rather than looked up each time.
+     *
+     * @param item An item.
+     * @return true if the item is only for sale in samurai mode.
+     */
+    public static boolean isSamuraiOnly(Item item) {
+        return (SAMURAI_ONLY_MASK & item.getMask()) != 0;
+    }
+
+    /**
+     * @param item The item being bought.
+     * @return The price of the item.
+     */
+    public int getBuyPrice(Item item) {
+        return buyPrices[item.getId()];
+    }
+
+    /**
+     * @param item The item being sold.
+     * @return What the shop pays for the item.
+     */
+    public int getSellPrice(Item item) {
+        return sellPrices[item.getId()];
+    }
+
+    public double getMarkdown() {
+        return markdown;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Changes the price of one item.
+     *
+     * @param item The item whose price changes.
+     * @param price The new price.
+     * @return A new table with the change and the next version number; this table is left as it was.
+     */
+    public PriceTable withPrice(Item item, int price) {
+        int[] prices = buyPrices.clone();
+        prices[item.getId()] = price;
+        return new PriceTable(prices, markdown, version + 1);
+    }
+
+    /**
+     * @return A table where everything costs nothing (what a samurai pays), built once and reused.
+     */
+    public PriceTable free() {
+        if (free == null) {
+            free = new PriceTable(new int[buyPrices.length], markdown, version + 1);
+        }
+        return free;
+    }
+
+    /**
+     * A string showing the items available in the shop and their prices. It is built the first time it is asked for.
+     *
+     * @param withSword true to add the samurai items, like the sword, to the end of the list.
+     * @return The listing, one item per line.
+     */
+    public String listing(boolean withSword) {
+        if (withSword) {
+            if (listingWithSword == null) {
+                listingWithSword = buildListing(true);
+            }
+            return listingWithSword;
+        }
+        if (listing == null) {
+            listing = buildListing(false);
+        }
+        return listing;
+    }
+
+    private String buildListing(boolean withSword) {
+        StringBuilder str = new StringBuilder();
+        for (Item item : STOCK) {
+            appendLine(str, item);
+        }
+        if (withSword) {
+            for (Item item : SAMURAI_STOCK) {
+                appendLine(str, item);
+            }
+        }
+        return str.toString();
+    }
+
+    private void appendLine(StringBuilder str, Item item) {
+        String name = item.getName();
+        str.append(Character.toUpperCase(name.charAt(0))).append(name, 1, name.length());
+        str.append(": ").append(getBuyPrice(item)).append(" gold\n");
+    }
+}
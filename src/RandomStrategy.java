@@ -0,0 +1,55 @@
+/**
+ * The RandomStrategy mashes the keyboard: every move, purchase and answer is picked at random.<p>
+ * It never chooses to exit, so games end by winning, going broke or hitting the turn limit.
+ */
+
+public class RandomStrategy implements Strategy {
+    // constants
+    private static final String[] MOVES = {"b", "s", "e", "m", "l", "h", "d"};
+    private static final String[] ITEMS = itemNames();
+
+    // instance variables
+    private String mode;
+    private GameRandom random;
+
+    /**
+     * @param mode The answer given to the "Hard mode?" prompt.
+     * @param random Where the bot's choices come from.
+     */
+    public RandomStrategy(String mode, GameRandom random) {
+        this.mode = mode;
+        this.random = random;
+    }
+
+    private static String[] itemNames() {
+        String[] names = new String[Item.count()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = Item.byId(i).getName();
+        }
+        return names;
+    }
+
+    public String chooseName() {
+        return "bot";
+    }
+
+    public String chooseMode() {
+        return mode;
+    }
+
+    public String chooseMove(TreasureHunter game) {
+        return MOVES[random.nextInt(MOVES.length)];
+    }
+
+    public String chooseItemToBuy(Hunter customer) {
+        return ITEMS[random.nextInt(ITEMS.length)];
+    }
+
+    public String chooseItemToSell(Hunter customer) {
+        return ITEMS[random.nextInt(ITEMS.length)];
+    }
+
+    public boolean confirm(Hunter customer, String item, int price) {
+        return random.nextBoolean();
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The RecordingStrategy plays like another strategy and writes down every answer it gives, in order,
+ * as the lines a player would have typed. Feeding those lines back through a ConsoleStrategy
+ * replays the same game.
+ */
+
+public class RecordingStrategy implements Strategy {
+    // instance variables
+    private Strategy strategy;
+    private List<String> script;
+
+    /**
+     * @param strategy The strategy whose answers are recorded.
+     */
+    public RecordingStrategy(Strategy strategy) {
+        this.strategy = strategy;
+        script = new ArrayList<>();
+    }
+
+    public String chooseName() {
+        return record(strategy.chooseName());
+    }
+
+    public String chooseMode() {
+        return record(strategy.chooseMode());
+    }
+
+    public String chooseMove(TreasureHunter game) {
+        return record(strategy.chooseMove(game));
+    }
+
+    public String chooseItemToBuy(Hunter customer) {
+        return record(strategy.chooseItemToBuy(customer));
+    }
+
+    public String chooseItemToSell(Hunter customer) {
+        return record(strategy.chooseItemToSell(customer));
+    }
+
+    public boolean confirm(Hunter customer, String item, int price) {
+        boolean answer = strategy.confirm(customer, item, price);
+        record(answer ? "y" : "n");
+        return answer;
+    }
+
+    private String record(String answer) {
+        // the console lower-cases what is typed, so the recorded game does too
+        String typed = answer.toLowerCase();
+        script.add(typed);
+        return typed;
+    }
+
+    /**
+     * @return Every answer given so far.
+     */
+    public List<String> getScript() {
+        return script;
+    }
+}
@@ -0,0 +1,425 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * RegressionHarness Class<br /><br />
+ * Records a corpus of games and checks later that every one of them still plays out exactly the same,
+ * so a change to Town, Shop or Hunter can't quietly change how games end.<p>
+ * Each recorded game is a seed, a mode, the lines the player typed (written down by a RecordingStrategy)
+ * and the golden transcript of everything the game showed (kept by a TranscriptRenderer).
+ * Checking replays every script through a ConsoleStrategy on the same seed, in parallel with fork-join,
+ * and compares the new transcript with the golden one: first by fingerprint, and only when those differ
+ * by unpacking the golden text and showing the first lines that differ.<p>
+ * The corpus is one file: the magic bytes "THR", a version byte, the turn limit and the number of games (varints),
+ * then each game as its seed, its mode, its script, the fingerprint and the golden transcript deflated.<p>
+ * The golden corpus is checked in next to the sources as regression.thr: 300 random-bot games, which buy, sell,
+ * brawl and wander far more than the greedy bot does. It was recorded with
+ * <code>java RegressionHarness record regression.thr 300 random 100 42</code>, and the build checks it, once the
+ * classes and content.txt are compiled into out, with <code>java -cp out RegressionHarness check src/regression.thr</code>,
+ * which exits with 1 if any game plays differently. A change that is meant to change how games play
+ * records the corpus again in the same commit, so the corpus always describes the rules next to it.
+ */
+
+public class RegressionHarness {
+    // constants
+    private static final byte[] MAGIC = {'T', 'H', 'R'};
+    public static final byte VERSION = 1;
+    private static final String[] MODE_ANSWERS = SimulationEngine.modeAnswers();
+    private static final int GAMES_PER_TASK = 64;
+    private static final int CONTEXT_LINES = 2;
+
+    /**
+     * One recorded game.
+     */
+    public static final class RecordedGame {
+        private final long seed;
+        private final String mode;
+        private final String[] script;
+        private final long fingerprint;
+        private final int transcriptLength;
+        private final ByteBuffer deflated;
+
+        RecordedGame(long seed, String mode, String[] script, long fingerprint, int transcriptLength, ByteBuffer deflated) {
+            this.seed = seed;
+            this.mode = mode;
+            this.script = script;
+            this.fingerprint = fingerprint;
+            this.transcriptLength = transcriptLength;
+            this.deflated = deflated;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        /**
+         * @return The golden transcript, unpacked.
+         */
+        public String getTranscript() {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(deflated.duplicate());
+                byte[] bytes = new byte[transcriptLength];
+                int n = 0;
+                while (n < bytes.length && !inflater.finished()) {
+                    n += inflater.inflate(bytes, n, bytes.length - n);
+                }
+                return new String(bytes, 0, n, StandardCharsets.UTF_8);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt transcript for seed " + seed, e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    // instance variables
+    private final int turnLimit;
+    private final List<RecordedGame> games;
+    private final ForkJoinPool pool;
+
+    private RegressionHarness(int turnLimit, List<RecordedGame> games, ForkJoinPool pool) {
+        this.turnLimit = turnLimit;
+        this.games = games;
+        this.pool = pool;
+    }
+
+    /**
+     * Plays a batch of games with a bot and writes them out as a corpus.
+     *
+     * @param path The corpus file to write.
+     * @param count How many games to record; the modes take turns.
+     * @param bot "greedy" or "random".
+     * @param turnLimit The most moves a game may take.
+     * @param rootSeed The seed every game's seed is derived from.
+     */
+    public static void record(Path path, int count, String bot, int turnLimit, long rootSeed) throws IOException {
+        byte[][] encoded = new byte[count][];
+        ForkJoinPool.commonPool().invoke(new RecordTask(encoded, bot, turnLimit, rootSeed, 0, count));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 1 + 2 * Varint.MAX_BYTES);
+            header.put(MAGIC).put(VERSION);
+            Varint.writeUnsigned(header, turnLimit);
+            Varint.writeUnsigned(header, count);
+            header.flip();
+            write(channel, header);
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            for (byte[] game : encoded) {
+                if (game.length > buffer.remaining()) {
+                    buffer.flip();
+                    write(channel, buffer);
+                    buffer.clear();
+                }
+                if (game.length > buffer.capacity()) {
+                    write(channel, ByteBuffer.wrap(game));
+                } else {
+                    buffer.put(game);
+                }
+            }
+            buffer.flip();
+            write(channel, buffer);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Plays and encodes one game for the corpus.
+     */
+    private static byte[] recordGame(String bot, int turnLimit, long rootSeed, long gameIndex) {
+        String mode = MODE_ANSWERS[(int) (gameIndex % MODE_ANSWERS.length)];
+        long seed = GameRandom.mix64(rootSeed + GameRandom.mix64(gameIndex));
+        Strategy player;
+        if (bot.equals("random")) {
+            player = new RandomStrategy(mode, new GameRandom(~seed));
+        } else {
+            player = new GreedyStrategy(mode);
+        }
+        RecordingStrategy recorder = new RecordingStrategy(player);
+        TranscriptRenderer transcript = new TranscriptRenderer(true);
+        TreasureHunter game = new TreasureHunter(recorder, transcript, new GameRandom(seed));
+        game.setTurnLimit(turnLimit);
+        game.play();
+
+        byte[] text = transcript.getTranscript().getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] packed = new byte[text.length / 4 + 64];
+        int packedLength = 0;
+        try {
+            deflater.setInput(text);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (packedLength == packed.length) {
+                    packed = Arrays.copyOf(packed, packed.length * 2);
+                }
+                packedLength += deflater.deflate(packed, packedLength, packed.length - packedLength);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        List<String> script = recorder.getScript();
+        int size = Long.BYTES * 2 + 4 * Varint.MAX_BYTES + Varint.maxStringBytes(game.getModeName()) + packedLength;
+        for (String line : script) {
+            size += Varint.maxStringBytes(line);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(seed);
+        Varint.writeString(buffer, game.getModeName());
+        Varint.writeUnsigned(buffer, script.size());
+        for (String line : script) {
+            Varint.writeString(buffer, line);
+        }
+        buffer.putLong(transcript.getFingerprint());
+        Varint.writeUnsigned(buffer, text.length);
+        Varint.writeUnsigned(buffer, packedLength);
+        buffer.put(packed, 0, packedLength);
+        byte[] encoded = new byte[buffer.position()];
+        buffer.flip().get(encoded);
+        return encoded;
+    }
+
+    /**
+     * Reads a corpus written by record().
+     *
+     * @param path The corpus file.
+     * @return A harness ready to check the corpus.
+     */
+    public static RegressionHarness load(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        for (byte b : MAGIC) {
+            if (buffer.get() != b) {
+                throw new IOException("Not a regression corpus: " + path);
+            }
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported corpus version " + version);
+        }
+        int turnLimit = (int) Varint.readUnsigned(buffer);
+        int count = (int) Varint.readUnsigned(buffer);
+        List<RecordedGame> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long seed = buffer.getLong();
+            String mode = Varint.readString(buffer);
+            String[] script = new String[(int) Varint.readUnsigned(buffer)];
+            for (int j = 0; j < script.length; j++) {
+                script[j] = Varint.readString(buffer);
+            }
+            long fingerprint = buffer.getLong();
+            int transcriptLength = (int) Varint.readUnsigned(buffer);
+            int packedLength = (int) Varint.readUnsigned(buffer);
+            ByteBuffer deflated = buffer.slice(buffer.position(), packedLength);
+            buffer.position(buffer.position() + packedLength);
+            games.add(new RecordedGame(seed, mode, script, fingerprint, transcriptLength, deflated));
+        }
+        return new RegressionHarness(turnLimit, games, ForkJoinPool.commonPool());
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * Replays one recorded game.
+     *
+     * @return A description of where the transcript first differs, or null if it matches.
+     */
+    public String check(RecordedGame recorded) {
+        TranscriptRenderer transcript = new TranscriptRenderer(false);
+        int unusedLines = replay(recorded, transcript);
+        if (unusedLines == 0 && transcript.getFingerprint() == recorded.fingerprint) {
+            return null;
+        }
+        // play it again keeping the text this time, to show where it went wrong
+        transcript = new TranscriptRenderer(true);
+        replay(recorded, transcript);
+        return diff(recorded, transcript.getTranscript(), unusedLines);
+    }
+
+    /**
+     * Plays a recorded script on the recorded seed.
+     *
+     * @return How many lines of the script were left over.
+     */
+    private int replay(RecordedGame recorded, TranscriptRenderer transcript) {
+        String[] script = recorded.script;
+        int[] next = {0};
+        ConsoleStrategy player = new ConsoleStrategy(() -> {
+            if (next[0] == script.length) {
+                throw new NoSuchElementException("script ran out");
+            }
+            return script[next[0]++];
+        });
+        TreasureHunter game = new TreasureHunter(player, transcript, new GameRandom(recorded.seed));
+        game.setTurnLimit(turnLimit);
+        try {
+            game.play();
+        } catch (NoSuchElementException e) {
+            transcript.addTextToWindow("\n<the script ran out here>", null);
+        }
+        return script.length - next[0];
+    }
+
+    private static String diff(RecordedGame recorded, String actual, int unusedLines) {
+        String[] expected = recorded.getTranscript().split("\n", -1);
+        String[] got = actual.split("\n", -1);
+        StringBuilder str = new StringBuilder();
+        str.append("seed ").append(recorded.seed).append(" (").append(recorded.mode).append("): ");
+        int line = 0;
+        while (line < expected.length && line < got.length && expected[line].equals(got[line])) {
+            line++;
+        }
+        if (line == expected.length && line == got.length) {
+            str.append("same transcript, but ").append(unusedLines).append(" lines of the script were not used\n");
+            return str.toString();
+        }
+        str.append("transcripts differ at line ").append(line + 1).append('\n');
+        for (int i = Math.max(0, line - CONTEXT_LINES); i <= line + CONTEXT_LINES; i++) {
+            if (i < expected.length && (i >= got.length || !expected[i].equals(got[i]) || i < line)) {
+                str.append((i < line) ? "    " : "  - ").append(expected[i]).append('\n');
+            }
+            if (i >= line && i < got.length && (i >= expected.length || !expected[i].equals(got[i]))) {
+                str.append("  + ").append(got[i]).append('\n');
+            }
+        }
+        return str.toString();
+    }
+
+    /**
+     * Replays the whole corpus in parallel.
+     *
+     * @return The differences found, one per game that didn't match; empty if everything matched.
+     */
+    public List<String> checkAll() {
+        return pool.invoke(new CheckTask(0, games.size()));
+    }
+
+    /**
+     * Records a range of games into their slots.
+     */
+    private static class RecordTask extends RecursiveAction {
+        private final byte[][] encoded;
+        private final String bot;
+        private final int turnLimit;
+        private final long rootSeed;
+        private final int from;
+        private final int to;
+
+        RecordTask(byte[][] encoded, String bot, int turnLimit, long rootSeed, int from, int to) {
+            this.encoded = encoded;
+            this.bot = bot;
+            this.turnLimit = turnLimit;
+            this.rootSeed = rootSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    encoded[i] = recordGame(bot, turnLimit, rootSeed, i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RecordTask(encoded, bot, turnLimit, rootSeed, from, middle),
+                    new RecordTask(encoded, bot, turnLimit, rootSeed, middle, to));
+        }
+    }
+
+    /**
+     * Checks a range of games, splitting it in half until it is small enough to replay directly.
+     */
+    private class CheckTask extends RecursiveTask<List<String>> {
+        private final int from;
+        private final int to;
+
+        CheckTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                List<String> differences = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    String difference = check(games.get(i));
+                    if (difference != null) {
+                        differences.add(difference);
+                    }
+                }
+                return differences;
+            }
+            int middle = (from + to) >>> 1;
+            CheckTask left = new CheckTask(from, middle);
+            left.fork();
+            List<String> differences = new CheckTask(middle, to).compute();
+            List<String> leftDifferences = left.join();
+            leftDifferences.addAll(differences);
+            return leftDifferences;
+        }
+    }
+
+    /**
+     * Usage:<br />
+     * java RegressionHarness record [corpusFile] [games] [greedy|random] [turnLimit] [seed]<br />
+     * java RegressionHarness check [corpusFile] [differences to show]<p>
+     * check exits with status 1 if any game played out differently, so it can gate a build.
+     */
+    public static void main(String[] args) throws IOException {
+        String command = (args.length > 0) ? args[0] : "check";
+        Path path = Path.of((args.length > 1) ? args[1] : "regression.thr");
+        if (command.equals("record")) {
+            int count = (args.length > 2) ? Integer.parseInt(args[2]) : 20000;
+            String bot = (args.length > 3) ? args[3] : "random";
+            int turnLimit = (args.length > 4) ? Integer.parseInt(args[4]) : 100;
+            long seed = (args.length > 5) ? Long.parseLong(args[5]) : 42;
+            long start = System.nanoTime();
+            record(path, count, bot, turnLimit, seed);
+            System.out.printf("Recorded %d %s games into %s in %.2f s%n", count, bot, path, (System.nanoTime() - start) / 1e9);
+            return;
+        }
+        int shown = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+        long start = System.nanoTime();
+        RegressionHarness harness = load(path);
+        List<String> differences = harness.checkAll();
+        System.out.printf("Replayed %d games in %.2f s: %d differ%n", harness.size(), (System.nanoTime() - start) / 1e9,
+                differences.size());
+        for (int i = 0; i < Math.min(shown, differences.size()); i++) {
+            System.out.print(differences.get(i));
+        }
+        if (!differences.isEmpty()) {
+            System.exit(1);
+        }
+    }
+}
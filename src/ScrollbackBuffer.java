@@ -0,0 +1,87 @@
+/**
+ * ScrollbackBuffer Class<br /><br />
+ * Keeps track of how long each line shown in a window is, in a ring buffer that holds at most a fixed number of lines.<p>
+ * When a new line pushes the count over the cap, the oldest line drops out of the ring and its length is
+ * added to the amount of text the window should cut from the top. The window never holds more than the cap,
+ * so memory and the cost of each insert and layout stay flat however long the session runs.
+ */
+
+public class ScrollbackBuffer {
+    // instance variables
+    private int[] lineLengths; // ring of line lengths, including each line's '\n'
+    private int oldest;
+    private int lines;
+    private int pendingTrim;
+
+    /**
+     * @param maxLines The most lines to keep.
+     */
+    public ScrollbackBuffer(int maxLines) {
+        if (maxLines < 1) {
+            throw new IllegalArgumentException("maxLines must be at least 1: " + maxLines);
+        }
+        lineLengths = new int[maxLines];
+        clear();
+    }
+
+    /**
+     * Records text added to the end of the window.
+     *
+     * @param text The text that was added.
+     */
+    public void append(CharSequence text) {
+        int current = (oldest + lines - 1) % lineLengths.length;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lineLengths[current] += i + 1 - start;
+                start = i + 1;
+                current = startNewLine();
+            }
+        }
+        lineLengths[current] += text.length() - start;
+    }
+
+    /**
+     * @return The number of characters to remove from the top of the window; the count is reset to 0.
+     */
+    public int takeTrim() {
+        int trim = pendingTrim;
+        pendingTrim = 0;
+        return trim;
+    }
+
+    /**
+     * Forgets every line, for when the window is cleared.
+     */
+    public void clear() {
+        oldest = 0;
+        lines = 1;
+        lineLengths[0] = 0;
+        pendingTrim = 0;
+    }
+
+    /**
+     * @return The number of lines being kept, counting the unfinished last line.
+     */
+    public int getLines() {
+        return lines;
+    }
+
+    /**
+     * Opens a new empty line, dropping the oldest line if the ring is full.
+     *
+     * @return The index of the new line.
+     */
+    private int startNewLine() {
+        if (lines == lineLengths.length) {
+            pendingTrim += lineLengths[oldest];
+            oldest = (oldest + 1) % lineLengths.length;
+            lines--;
+        }
+        int current = (oldest + lines) % lineLengths.length;
+        lineLengths[current] = 0;
+        lines++;
+        return current;
+    }
+}
@@ -1,6 +1,3 @@
-import java.awt.*;
-import java.util.Scanner;
-
 /**
  * The Shop class controls the cost of the items in the Treasure Hunt game. <p>
  * The Shop class also acts as a go between for the Hunter's buyItem() method. <p>
@@ -8,35 +5,42 @@ import java.util.Scanner;
  */
 
 public class Shop {
-    // constants
-    private int waterCost = 2;
-    private int ropeCost = 4;
-    private int macheteCost = 6;
-    private int horseCost = 12;
-    private int boatCost = 20;
-    private int bootsCost = 10;
-    private int shovelCost = 8;
-    private int swordCost = 0;
-    private OutputWindow window;
-    // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
+    // the shop's two counters: "b" buys, and anything else sells, as it always has
+    private static final CommandRegistry<Shop> COMMANDS = new CommandRegistry<Shop>()
+            .register("b", (shop, key) -> shop.serveBuyer())
+            .register("s", (shop, key) -> shop.serveSeller())
+            .otherwise((shop, key) -> shop.serveSeller());
+
+    private GameRenderer window;
 
     // instance variables
-    private double markdown;
+    private PriceTable prices;
     private Hunter customer;
     private Boolean isSamuraiMode;
+    private Strategy strategy;
 
 
     /**
      * The Shop constructor takes in a markdown value and leaves customer null until one enters the shop.
      *
      * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param strategy Answers the shopkeeper's questions on behalf of the customer.
+     */
+    public Shop(double markdown, boolean isSamuraiMode, GameRenderer window, Strategy strategy) {
+        this(PriceTable.standard(markdown), isSamuraiMode, window, strategy);
+    }
+
+    /**
+     * Builds a shop that charges from an existing price table, so that shops in different towns can share one.
+     *
+     * @param prices The prices the shop charges.
      */
-    public Shop(double markdown, boolean isSamuraiMode, OutputWindow window) {
-        this.markdown = markdown;
+    public Shop(PriceTable prices, boolean isSamuraiMode, GameRenderer window, Strategy strategy) {
+        this.prices = prices;
         customer = null; // customer is set in the enter method
         this.isSamuraiMode = isSamuraiMode;
         this.window = window;
+        this.strategy = strategy;
     }
 
     /**
@@ -47,107 +51,110 @@ public class Shop {
      * @return a String to be used for printing in the latest news
      */
     public String enter(Hunter hunter, String buyOrSell) {
+        long start = System.nanoTime();
         customer = hunter;
 
-        if (buyOrSell.equals("b")) {
-            window.addTextToWindow("\nWelcome to the shop! We have the finest wares in town.", Color.BLACK);
-            window.addTextToWindow("\nCurrently we have the following items:", Color.BLACK);
-            window.addTextToWindow("\n" + inventory(), Color.BLACK);
-            window.addTextToWindow("\nWhat're you lookin' to buy? ", Color.BLUE);
-            String item = SCANNER.nextLine().toLowerCase();
-            int cost = checkMarketPrice(item, true);
-            if (cost == 0) {
-                if(item.equals("sword")){
-                    window.addTextToWindow("\nIt'll cost you 0 gold. Buy it (y/n)? ", Color.BLUE);
-                    String option = SCANNER.nextLine().toLowerCase();
-                    if (option.equals("y")) {
-                        buyItem(item);
-                    }
-                } else {
-                    window.addTextToWindow("\nIt'll cost you ", Color.BLUE);
-                    window.addTextToWindow(cost + " gold", Color.YELLOW);
-                    window.addTextToWindow(". Buy it (y/n)?", Color.BLUE);
-                    String option = SCANNER.nextLine().toLowerCase();
-                    if (option.equals("y")) {
-                        buyItem(item);
-                    }
-                    window.addTextToWindow("\nWe ain't got none of those.", Color.BLUE);
+        COMMANDS.dispatch(this, buyOrSell);
+        window.clear();
+        GameMetrics.INSTANCE.shopEnter().finished(start);
+        return "You left the shop";
+
+    }
+
+    /**
+     * Shows what's for sale and lets the customer buy one thing.
+     */
+    private void serveBuyer() {
+        window.addTextToWindow("\nWelcome to the shop! We have the finest wares in town.", TextColor.BLACK);
+        window.addTextToWindow("\nCurrently we have the following items:", TextColor.BLACK);
+        window.addTextToWindow("\n", TextColor.BLACK);
+        window.addTextToWindow(inventory(), TextColor.BLACK);
+        window.addTextToWindow("\nWhat're you lookin' to buy? ", TextColor.BLUE);
+        window.flush();
+        String item = strategy.chooseItemToBuy(customer);
+        if (!isForSale(item)) {
+            // nothing to price or offer: unknown items, and the samurai items outside samurai mode
+            window.addTextToWindow("\nWe ain't got none of those.", TextColor.BLUE);
+            return;
+        }
+        int cost = checkMarketPrice(item, true);
+        if (cost == 0) {
+            if(item.equals("sword")){
+                window.addTextToWindow("\nIt'll cost you 0 gold. Buy it (y/n)? ", TextColor.BLUE);
+                window.flush();
+                if (strategy.confirm(customer, item, cost)) {
+                    buyItem(item);
                 }
             } else {
-                window.addTextToWindow("\nIt'll cost you ", Color.BLUE);
-                window.addTextToWindow(cost + " gold", Color.YELLOW);
-                window.addTextToWindow(". Buy it (y/n)?", Color.BLUE);
-//                window.addTextToWindow(("\nIt'll cost you " + Colors.YELLOW + cost + " gold" + Colors.RESET + ". Buy it (y/n)? "), Color.BLUE);
-                String option = SCANNER.nextLine().toLowerCase();
-                if (option.equals("y")) {
+                window.addTextToWindow("\nIt'll cost you ", TextColor.BLUE);
+                window.addTextToWindow(cost + " gold", TextColor.YELLOW);
+                window.addTextToWindow(". Buy it (y/n)?", TextColor.BLUE);
+                window.flush();
+                if (strategy.confirm(customer, item, cost)) {
                     buyItem(item);
                 }
+                window.addTextToWindow("\nWe ain't got none of those.", TextColor.BLUE);
             }
         } else {
-            window.addTextToWindow("\nWhat're you lookin' to sell? ", Color.BLUE);
-            window.addTextToWindow(("\nYou currently have the following items: " + customer.getInventory()), Color.BLUE);
-            String item = SCANNER.nextLine().toLowerCase();
-            int cost = checkMarketPrice(item, false);
-            if (cost == 0) {
-                window.addTextToWindow("\nWe don't want none of those.", Color.BLUE);
-            } else {
-                window.addTextToWindow("\nIt'll get you " + cost + " gold. Sell it (y/n)? ", Color.BLUE);
-                String option = SCANNER.nextLine().toLowerCase();
-                if (option.equals("y")) {
-                    sellItem(item);
-                }
+            window.addTextToWindow("\nIt'll cost you ", TextColor.BLUE);
+            window.addTextToWindow(cost + " gold", TextColor.YELLOW);
+            window.addTextToWindow(". Buy it (y/n)?", TextColor.BLUE);
+//                window.addTextToWindow(("\nIt'll cost you " + Colors.YELLOW + cost + " gold" + Colors.RESET + ". Buy it (y/n)? "), TextColor.BLUE);
+            window.flush();
+            if (strategy.confirm(customer, item, cost)) {
+                buyItem(item);
             }
         }
-        window.clear();
-        return "You left the shop";
+    }
 
+    /**
+     * Lets the customer sell one thing from their kit.
+     */
+    private void serveSeller() {
+        window.addTextToWindow("\nWhat're you lookin' to sell? ", TextColor.BLUE);
+        window.addTextToWindow(("\nYou currently have the following items: " + customer.getInventory()), TextColor.BLUE);
+        window.flush();
+        String item = strategy.chooseItemToSell(customer);
+        int cost = checkMarketPrice(item, false);
+        if (cost == 0) {
+            window.addTextToWindow("\nWe don't want none of those.", TextColor.BLUE);
+        } else {
+            window.addTextToWindow("\nIt'll get you " + cost + " gold. Sell it (y/n)? ", TextColor.BLUE);
+            window.flush();
+            if (strategy.confirm(customer, item, cost)) {
+                sellItem(item);
+            }
+        }
     }
 
     /**
      * A method that returns a string showing the items available in the shop
-     * (all shops sell the same items).
+     * (all shops sell the same items).<p>
+     * In samurai mode the sword is on offer until the customer has one, and after that everything is free.
      *
      * @return the string representing the shop's items available for purchase and their prices.
      */
     public String inventory() {
-        if(isSamuraiMode){
-            if(customer.hasItemInKit("sword")){
-                waterCost = 0;
-                ropeCost = 0;
-                macheteCost = 0;
-                horseCost = 0;
-                boatCost = 0;
-                bootsCost = 0;
-                shovelCost = 0;
-                String str = "Water: " + waterCost + " gold\n";
-                str += "Rope: " + ropeCost + " gold\n";
-                str += "Machete: " + macheteCost + " gold\n";
-                str += "Horse: " + horseCost + " gold\n";
-                str += "Boat: " + boatCost + " gold\n";
-                str += "Boots: " + bootsCost + " gold\n";
-                str += "Shovel: " + shovelCost + " gold\n";
-                return str;
-            } else {
-                String str = "Water: " + waterCost + " gold\n";
-                str += "Rope: " + ropeCost + " gold\n";
-                str += "Machete: " + macheteCost + " gold\n";
-                str += "Horse: " + horseCost + " gold\n";
-                str += "Boat: " + boatCost + " gold\n";
-                str += "Boots: " + bootsCost + " gold\n";
-                str += "Shovel: " + shovelCost + " gold\n";
-                str += "Sword: " + swordCost + " gold\n";
-                return str;
+        if (isSamuraiMode) {
+            if (customer.hasItem(Item.SWORD)) {
+                return prices.free().listing(false);
             }
-        } else {
-            String str = "Water: " + waterCost + " gold\n";
-            str += "Rope: " + ropeCost + " gold\n";
-            str += "Machete: " + macheteCost + " gold\n";
-            str += "Horse: " + horseCost + " gold\n";
-            str += "Boat: " + boatCost + " gold\n";
-            str += "Boots: " + bootsCost + " gold\n";
-            str += "Shovel: " + shovelCost + " gold\n";
-            return str;
+            return prices.listing(true);
         }
+        return prices.listing(false);
+    }
+
+    /**
+     * Changes the prices this shop charges.
+     *
+     * @param prices The new price table.
+     */
+    public void setPrices(PriceTable prices) {
+        this.prices = prices;
+    }
+
+    public PriceTable getPrices() {
+        return prices;
     }
 
     /**
@@ -157,13 +164,24 @@ public class Shop {
      */
     public void buyItem(String item) {
         int costOfItem = checkMarketPrice(item, true);
-        if (customer.buyItem(item, costOfItem)) {
-            window.addTextToWindow("\nYe' got yerself a " + item + ". Come again soon.", Color.BLUE);
+        if (isForSale(item) && customer.buyItem(item, costOfItem)) {
+            window.addTextToWindow("\nYe' got yerself a " + item + ". Come again soon.", TextColor.BLUE);
         } else {
-            window.addTextToWindow("\nHmm, either you don't have enough gold or you've already got one of those!", Color.BLUE);
+            window.addTextToWindow("\nHmm, either you don't have enough gold or you've already got one of those!", TextColor.BLUE);
         }
     }
 
+    /**
+     * Checks that the shop stocks an item at all: the samurai items are only for sale in samurai mode.
+     *
+     * @param item The name of the item.
+     * @return true if the item can be bought here.
+     */
+    public boolean isForSale(String item) {
+        Item found = Item.named(item);
+        return found != null && (isSamuraiMode || !PriceTable.isSamuraiOnly(found));
+    }
+
     /**
      * A pathway method that lets the Hunter sell an item.
      *
@@ -172,9 +190,9 @@ public class Shop {
     public void sellItem(String item) {
         int buyBackPrice = checkMarketPrice(item, false);
         if (customer.sellItem(item, buyBackPrice)) {
-            window.addTextToWindow("\nPleasure doin' business with you.", Color.BLUE);
+            window.addTextToWindow("\nPleasure doin' business with you.", TextColor.BLUE);
         } else {
-            window.addTextToWindow("\nStop stringin' me along!", Color.BLUE);
+            window.addTextToWindow("\nStop stringin' me along!", TextColor.BLUE);
         }
     }
 
@@ -194,41 +212,40 @@ public class Shop {
     }
 
     /**
-     * Checks the item entered against the costs listed in the static variables.
+     * Looks the item entered up in the price table.
      *
      * @param item The item being checked for cost.
      * @return The cost of the item or 0 if the item is not found.
      */
     public int getCostOfItem(String item) {
-        if (item.equals("water")) {
-            return waterCost;
-        } else if (item.equals("rope")) {
-            return ropeCost;
-        } else if (item.equals("machete")) {
-            return macheteCost;
-        } else if (item.equals("horse")) {
-            return horseCost;
-        } else if (item.equals("boat")) {
-            return boatCost;
-        } else if (item.equals("boots")){
-            return bootsCost;
-        } else if (item.equals("shovel")){
-            return shovelCost;
-        } else {
+        Item found = Item.named(item);
+        if (found == null) {
             return 0;
         }
+        return currentPrices().getBuyPrice(found);
     }
 
     /**
-     * Checks the cost of an item and applies the markdown.
+     * Looks up what the shop pays for an item, with the markdown already applied.
      *
      * @param item The item being sold.
      * @return The sell price of the item.
      */
     public int getBuyBackCost(String item) {
-        int cost = (int) (getCostOfItem(item) * markdown);
-        return cost;
+        Item found = Item.named(item);
+        if (found == null) {
+            return 0;
+        }
+        return currentPrices().getSellPrice(found);
     }
 
-
-}
\ No newline at end of file
+    /**
+     * @return The table to charge from: a samurai carrying a sword gets everything for free.
+     */
+    private PriceTable currentPrices() {
+        if (isSamuraiMode && customer != null && customer.hasItem(Item.SWORD)) {
+            return prices.free();
+        }
+        return prices;
+    }
+}
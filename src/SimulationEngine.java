@@ -0,0 +1,122 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+
+/**
+ * SimulationEngine Class<br /><br />
+ * Plays complete games of Treasure Hunter without a window or a keyboard, spread over every core with fork-join.<p>
+ * Games take turns through the difficulty modes (easy, normal, hard, samurai) so every mode gets the same share.<p>
+ * Every game draws from its own GameRandom derived from one root seed, so a batch can be replayed exactly
+ * and the threads never share a random number generator.
+ */
+
+public class SimulationEngine {
+    // constants
+    private static final String[] MODE_ANSWERS = modeAnswers(); // same order as SimulationReport.MODES
+    private static final int GAMES_PER_TASK = 256;
+
+    // instance variables
+    private BiFunction<String, GameRandom, Strategy> strategies;
+    private int turnLimit;
+    private long rootSeed;
+    private ForkJoinPool pool;
+    private EventJournal journal;
+
+    /**
+     * @param strategies Builds a fresh Strategy for each game from the "Hard mode?" answer it should give
+     *                   and a random source of its own.
+     * @param turnLimit The most moves a single game may take.
+     * @param rootSeed The seed every game's random source is derived from.
+     */
+    public SimulationEngine(BiFunction<String, GameRandom, Strategy> strategies, int turnLimit, long rootSeed) {
+        this(strategies, turnLimit, rootSeed, ForkJoinPool.commonPool());
+    }
+
+    public SimulationEngine(BiFunction<String, GameRandom, Strategy> strategies, int turnLimit, long rootSeed, ForkJoinPool pool) {
+        this.strategies = strategies;
+        this.turnLimit = turnLimit;
+        this.rootSeed = rootSeed;
+        this.pool = pool;
+    }
+
+    /**
+     * Records every game played from now on, tagged with its index in the batch.
+     *
+     * @param journal The journal to record into, or null to stop recording.
+     */
+    public void setJournal(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Plays a batch of games.
+     *
+     * @param games How many games to play.
+     * @return The merged results of every game.
+     */
+    public SimulationReport run(long games) {
+        long start = System.nanoTime();
+        SimulationReport report = pool.invoke(new SimulationTask(0, games));
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Plays one headless game.
+     *
+     * @param gameIndex The position of the game in the batch, which decides its mode and its random rolls.
+     * @return How the game ended.
+     */
+    public GameResult playGame(long gameIndex) {
+        String mode = MODE_ANSWERS[(int) (gameIndex % MODE_ANSWERS.length)];
+        GameRandom random = GameRandom.forGame(rootSeed, gameIndex);
+        Strategy strategy = strategies.apply(mode, random.split());
+        TreasureHunter game = new TreasureHunter(strategy, NullRenderer.INSTANCE, random);
+        game.setTurnLimit(turnLimit);
+        if (journal != null) {
+            game.setListener(journal.recorder(gameIndex));
+        }
+        return game.play();
+    }
+
+    /**
+     * @return What a player answers to pick each mode, in the order of the content file.
+     */
+    static String[] modeAnswers() {
+        String[] answers = new String[GameMode.count()];
+        for (int i = 0; i < answers.length; i++) {
+            answers[i] = GameMode.byIndex(i).getAnswer();
+        }
+        return answers;
+    }
+
+    /**
+     * Splits a range of games in half until it is small enough to play directly.
+     */
+    private class SimulationTask extends RecursiveTask<SimulationReport> {
+        private long from;
+        private long to;
+
+        SimulationTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationReport compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                SimulationReport report = new SimulationReport();
+                for (long i = from; i < to; i++) {
+                    report.record(playGame(i));
+                }
+                return report;
+            }
+            long middle = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(from, middle);
+            left.fork();
+            SimulationReport report = new SimulationTask(middle, to).compute();
+            report.merge(left.join());
+            return report;
+        }
+    }
+}
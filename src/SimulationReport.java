@@ -0,0 +1,172 @@
+/**
+ * SimulationReport Class<br /><br />
+ * Tallies the results of many headless games: how many were played and won on each difficulty,
+ * and how many turns they lasted. The rest of each result goes on to a BalanceStats.<p>
+ * Each fork-join task fills in its own report and the reports are merged at the end,
+ * so no locking is needed while games are running.
+ */
+
+public class SimulationReport {
+    // constants
+    public static final String[] MODES = modeNames(); // every mode in the content file
+    private static final int TURN_BUCKET_WIDTH = 10;
+    private static final int TURN_BUCKETS = 50;
+
+    // instance variables
+    private long[] gamesPerMode;
+    private long[] winsPerMode;
+    private long[] turnHistogram; // last bucket holds every game longer than the others cover
+    private long totalTurns;
+    private long elapsedNanos;
+    private BalanceStats balance;
+
+    public SimulationReport() {
+        balance = new BalanceStats();
+        gamesPerMode = new long[MODES.length];
+        winsPerMode = new long[MODES.length];
+        turnHistogram = new long[TURN_BUCKETS + 1];
+    }
+
+    /**
+     * Adds a finished game to the report.
+     *
+     * @param result How the game ended.
+     */
+    public void record(GameResult result) {
+        int mode = modeIndex(result.getMode());
+        gamesPerMode[mode]++;
+        if (result.isWon()) {
+            winsPerMode[mode]++;
+        }
+        totalTurns += result.getTurns();
+        turnHistogram[Math.min(result.getTurns() / TURN_BUCKET_WIDTH, TURN_BUCKETS)]++;
+        balance.record(result);
+    }
+
+    /**
+     * Adds the tallies of another report to this one.
+     *
+     * @param other The report to merge in.
+     */
+    public void merge(SimulationReport other) {
+        for (int i = 0; i < MODES.length; i++) {
+            gamesPerMode[i] += other.gamesPerMode[i];
+            winsPerMode[i] += other.winsPerMode[i];
+        }
+        for (int i = 0; i < turnHistogram.length; i++) {
+            turnHistogram[i] += other.turnHistogram[i];
+        }
+        totalTurns += other.totalTurns;
+        balance.merge(other.balance);
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The turns taken in every game put together.
+     */
+    public long getTotalTurns() {
+        return totalTurns;
+    }
+
+    /**
+     * @return The gold, turns, treasures, brawls and broken items of every game, by mode.
+     */
+    public BalanceStats getBalance() {
+        return balance;
+    }
+
+    public long getGames() {
+        long games = 0;
+        for (long g : gamesPerMode) {
+            games += g;
+        }
+        return games;
+    }
+
+    public double getGamesPerSecond() {
+        return getGames() / (elapsedNanos / 1e9);
+    }
+
+    private static String[] modeNames() {
+        String[] names = new String[GameMode.count()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = GameMode.byIndex(i).getName();
+        }
+        return names;
+    }
+
+    /**
+     * @param mode "easy", "normal", "hard" or "samurai".
+     * @return The fraction of games on that mode that were won.
+     */
+    public double getWinRate(String mode) {
+        int idx = modeIndex(mode);
+        if (gamesPerMode[idx] == 0) {
+            return 0;
+        }
+        return (double) winsPerMode[idx] / gamesPerMode[idx];
+    }
+
+    /**
+     * Reads a percentile off the turn histogram.
+     *
+     * @param percentile Between 0 and 100.
+     * @return The upper edge of the bucket the percentile falls in.
+     */
+    public int getTurnPercentile(double percentile) {
+        long target = (long) Math.ceil(getGames() * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < turnHistogram.length; i++) {
+            seen += turnHistogram[i];
+            if (seen >= target && seen > 0) {
+                return (i + 1) * TURN_BUCKET_WIDTH;
+            }
+        }
+        return turnHistogram.length * TURN_BUCKET_WIDTH;
+    }
+
+    /**
+     * @return A printable summary of the simulation.
+     */
+    public String infoString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d games in %.2f s (%.0f games/s)%n", getGames(), elapsedNanos / 1e9, getGamesPerSecond()));
+        for (int i = 0; i < MODES.length; i++) {
+            if (gamesPerMode[i] > 0) {
+                sb.append(String.format("  %-8s %10d games  %6.2f%% won%n", MODES[i], gamesPerMode[i], 100.0 * getWinRate(MODES[i])));
+            }
+        }
+        if (getGames() > 0) {
+            sb.append(String.format("turns: mean %.1f, p50 <= %d, p90 <= %d, p99 <= %d%n",
+                    (double) totalTurns / getGames(), getTurnPercentile(50), getTurnPercentile(90), getTurnPercentile(99)));
+        }
+        long tallest = 1;
+        for (long count : turnHistogram) {
+            tallest = Math.max(tallest, count);
+        }
+        for (int i = 0; i < turnHistogram.length; i++) {
+            if (turnHistogram[i] == 0) {
+                continue;
+            }
+            String label = (i == TURN_BUCKETS) ? (i * TURN_BUCKET_WIDTH) + "+" : (i * TURN_BUCKET_WIDTH) + "-" + ((i + 1) * TURN_BUCKET_WIDTH - 1);
+            sb.append(String.format("  %9s %10d %s%n", label, turnHistogram[i], "#".repeat((int) (40 * turnHistogram[i] / tallest))));
+        }
+        return sb.toString();
+    }
+
+    static int modeIndex(String mode) {
+        for (int i = 0; i < MODES.length; i++) {
+            if (MODES[i].equals(mode)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown mode: " + mode);
+    }
+}
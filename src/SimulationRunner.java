@@ -0,0 +1,44 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Runs a headless Monte Carlo simulation from the command line.<p>
+ * Usage: java SimulationRunner [games] [greedy|random] [turnLimit] [seed] [journalFile|-] [statsFile]<p>
+ * The balance stats are written to the stats file as JSON if its name ends in ".json", and as CSV otherwise.<p>
+ * While it runs, the game metrics are printed to stderr every ten seconds and can be read over JMX.
+ */
+
+public class SimulationRunner {
+    public static void main(String[] args) throws IOException {
+        long games = (args.length > 0) ? Long.parseLong(args[0]) : 100000;
+        String bot = (args.length > 1) ? args[1] : "greedy";
+        int turnLimit = (args.length > 2) ? Integer.parseInt(args[2]) : 500;
+        long seed = (args.length > 3) ? Long.parseLong(args[3]) : System.nanoTime();
+
+        SimulationEngine engine;
+        if (bot.equals("random")) {
+            engine = new SimulationEngine(RandomStrategy::new, turnLimit, seed);
+        } else {
+            engine = new SimulationEngine((mode, random) -> new GreedyStrategy(mode), turnLimit, seed);
+        }
+        GameMetrics.INSTANCE.registerInBackground();
+        GameMetrics.INSTANCE.startReporter(System.err, 10);
+        System.out.println("Simulating " + games + " games with the " + bot + " strategy (seed " + seed + ")...");
+        SimulationReport report;
+        if (args.length > 4 && !args[4].equals("-")) {
+            try (EventJournal journal = new EventJournal(Path.of(args[4]), 100)) {
+                engine.setJournal(journal);
+                report = engine.run(games);
+            }
+        } else {
+            report = engine.run(games);
+        }
+        System.out.print(report.infoString());
+        if (args.length > 5) {
+            report.getBalance().export(Path.of(args[5]));
+            System.out.println("Balance stats written to " + args[5]);
+        }
+        GameMetrics.INSTANCE.stopReporter();
+        System.out.print(GameMetrics.INSTANCE.infoString());
+    }
+}
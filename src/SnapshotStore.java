@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SnapshotStore Class<br /><br />
+ * Parks games on disk, one snapshot file per session in a directory, so idle sessions don't have to stay on the heap.<p>
+ * A save writes to a temporary file and then renames it over the old one, so a crash never leaves half a snapshot behind.<p>
+ * Usage: java SnapshotStore directory [sessions] measures how fast sessions can be parked and restored.
+ */
+
+public class SnapshotStore {
+    // constants
+    private static final String SUFFIX = ".ths";
+    private static final int BUFFER_BYTES = 512;
+
+    // instance variables
+    private Path directory;
+    private ThreadLocal<ByteBuffer> buffers;
+
+    /**
+     * @param directory The directory holding the snapshots; it is created if it doesn't exist.
+     * @throws IOException if the directory can't be created.
+     */
+    public SnapshotStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_BYTES));
+    }
+
+    /**
+     * Saves a snapshot, replacing any earlier one for the same session.
+     *
+     * @param sessionId The session the snapshot belongs to (letters, digits, '-' and '_').
+     * @param snapshot The snapshot.
+     */
+    public void save(String sessionId, GameSnapshot snapshot) throws IOException {
+        ByteBuffer buffer = buffer(snapshot.maxBytes());
+        snapshot.writeTo(buffer);
+        buffer.flip();
+        Path file = fileFor(sessionId);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a session's snapshot.
+     *
+     * @param sessionId The session to load.
+     * @return The snapshot, or null if the session has none.
+     */
+    public GameSnapshot load(String sessionId) throws IOException {
+        try (FileChannel channel = FileChannel.open(fileFor(sessionId), StandardOpenOption.READ)) {
+            ByteBuffer buffer = buffer((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer holds the whole file
+            }
+            buffer.flip();
+            return GameSnapshot.readFrom(buffer);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Removes a session's snapshot, for example once it has been restored.
+     *
+     * @param sessionId The session to remove.
+     * @return true if there was a snapshot to remove.
+     */
+    public boolean delete(String sessionId) throws IOException {
+        return Files.deleteIfExists(fileFor(sessionId));
+    }
+
+    private Path fileFor(String sessionId) {
+        if (!sessionId.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Bad session id: " + sessionId);
+        }
+        return directory.resolve(sessionId + SUFFIX);
+    }
+
+    /**
+     * @return This thread's buffer, cleared and with room for at least the given number of bytes.
+     */
+    private ByteBuffer buffer(int bytes) {
+        ByteBuffer buffer = buffers.get();
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocateDirect(bytes);
+            buffers.set(buffer);
+        }
+        buffer.clear();
+        buffer.limit(bytes);
+        return buffer;
+    }
+
+    public static void main(String[] args) throws IOException {
+        SnapshotStore store = new SnapshotStore(Path.of(args[0]));
+        int sessions = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+        String[] moves = {"h", "d", "l", "e", "m"};
+
+        GameSnapshot[] snapshots = new GameSnapshot[sessions];
+        for (int i = 0; i < sessions; i++) {
+            TreasureHunter game = new TreasureHunter(new GreedyStrategy("n"), NullRenderer.INSTANCE, new GameRandom(i));
+            game.start();
+            for (int turn = 0; turn < 5; turn++) {
+                game.processChoice(moves[turn]);
+            }
+            snapshots[i] = game.snapshot();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            store.save("session-" + i, snapshots[i]);
+        }
+        long saved = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            GameSnapshot snapshot = store.load("session-" + i);
+            TreasureHunter.restore(snapshot, new GreedyStrategy("n"), NullRenderer.INSTANCE);
+        }
+        long loaded = System.nanoTime();
+        ByteBuffer encoded = ByteBuffer.allocate(BUFFER_BYTES);
+        long decodeStart = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            encoded.clear();
+            snapshots[i].writeTo(encoded);
+            encoded.flip();
+            TreasureHunter.restore(GameSnapshot.readFrom(encoded), new GreedyStrategy("n"), NullRenderer.INSTANCE);
+        }
+        long decoded = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            store.delete("session-" + i);
+        }
+        System.out.printf("%d sessions, %d bytes per snapshot%n", sessions, encoded.limit());
+        System.out.printf("park to disk:      %.1f us each%n", (saved - start) / 1e3 / sessions);
+        System.out.printf("restore from disk: %.1f us each%n", (loaded - saved) / 1e3 / sessions);
+        System.out.printf("encode + restore in memory: %.2f us each%n", (decoded - decodeStart) / 1e3 / sessions);
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Strategy Interface<br /><br />
+ * A Strategy makes every decision that a player would normally type into the game:
+ * the hunter's name, the difficulty, the next move from the menu and the answers given in the shop.<p>
+ * The interactive game reads these from the keyboard; the headless simulation engine plugs in a bot instead.
+ */
+
+public interface Strategy {
+
+    /**
+     * @return The name of the hunter.
+     */
+    String chooseName();
+
+    /**
+     * Picks the difficulty, using the same answers as the "Hard mode?" prompt.
+     *
+     * @return "y" for hard, "e" for easy, "s" for samurai, "test" for test mode, anything else for normal.
+     */
+    String chooseMode();
+
+    /**
+     * Picks the next option from the main menu.
+     *
+     * @param game The game being played.
+     * @return The menu letter of the chosen move.
+     */
+    String chooseMove(TreasureHunter game);
+
+    /**
+     * @param customer The hunter standing in the shop.
+     * @return The name of the item to buy.
+     */
+    String chooseItemToBuy(Hunter customer);
+
+    /**
+     * @param customer The hunter standing in the shop.
+     * @return The name of the item to sell.
+     */
+    String chooseItemToSell(Hunter customer);
+
+    /**
+     * Answers the shopkeeper's "(y/n)?" question.
+     *
+     * @param customer The hunter standing in the shop.
+     * @param item The item being bought or sold.
+     * @param price The price the shopkeeper asked for.
+     * @return true to go through with the deal.
+     */
+    boolean confirm(Hunter customer, String item, int price);
+}
@@ -6,7 +6,7 @@
 public class Terrain {
     // instance variables
     private String terrainName;
-    private String neededItem;
+    private Item neededItem;
 
     /**
      * Sets the class member variables
@@ -15,8 +15,16 @@ public class Terrain {
      * @param item The item needed in order to cross the zone.
      */
     public Terrain(String name, String item) {
+        this(name, Item.named(item));
+    }
+
+    /**
+     * @param name The name of the zone.
+     * @param item The item needed in order to cross the zone.
+     */
+    public Terrain(String name, Item item) {
         terrainName = name;
-        neededItem = item.toLowerCase();
+        neededItem = item;
     }
 
     // accessors
@@ -25,6 +33,10 @@ public class Terrain {
     }
 
     public String getNeededItem() {
+        return neededItem.getName();
+    }
+
+    public Item getNeededItemType() {
         return neededItem;
     }
 
@@ -36,7 +48,7 @@ public class Terrain {
      * @return true if the Hunter has the proper item.
      */
     public boolean canCrossTerrain(Hunter hunter) {
-        if (hunter.hasItemInKit(neededItem)) {
+        if (hunter.hasItem(neededItem)) {
             return true;
         }
         return false;
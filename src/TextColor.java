@@ -0,0 +1,42 @@
+/**
+ * TextColor Enum<br /><br />
+ * The colors the game prints its text in.<p>
+ * The game itself only names a color; each GameRenderer decides what it looks like. A color carries both
+ * the terminal escape code from Colors and the red-green-blue value a window draws it with, so neither
+ * renderer has to search for a match, and the game doesn't need AWT just to say "yellow".
+ */
+
+public enum TextColor {
+    // black text is printed in the terminal's own color, since black on a dark terminal can't be read
+    BLACK(Colors.RESET, 0x000000),
+    RED(Colors.RED, 0xFF0000),
+    GREEN(Colors.GREEN, 0x00FF00),
+    YELLOW(Colors.YELLOW, 0xFFFF00),
+    BLUE(Colors.BLUE, 0x0000FF),
+    MAGENTA(Colors.PURPLE, 0xFF00FF),
+    CYAN(Colors.CYAN, 0x00FFFF),
+    WHITE(Colors.WHITE, 0xFFFFFF);
+
+    // instance variables
+    private final String ansi;
+    private final int rgb;
+
+    TextColor(String ansi, int rgb) {
+        this.ansi = ansi;
+        this.rgb = rgb;
+    }
+
+    /**
+     * @return The escape code that switches a terminal to this color, or Colors.RESET for the terminal's own color.
+     */
+    public String getAnsi() {
+        return ansi;
+    }
+
+    /**
+     * @return The color as 0xRRGGBB, the same as java.awt.Color's constant of the same name.
+     */
+    public int getRgb() {
+        return rgb;
+    }
+}
@@ -1,4 +1,3 @@
-import java.awt.*;
 import java.util.*;
 /**
  * The Town Class is where it all happens.
@@ -7,25 +6,35 @@ import java.util.*;
  */
 
 public class Town {
+    // the terrains a town can be surrounded by, from the content file; Terrain objects never change, so every town shares them
+    private static final Terrain[] TERRAINS = loadTerrains();
+
+    // what a hunt can turn up, in the order of GameMode.getTreasureOdds()
+    private static final String[] TREASURES = loadTreasures();
+
+    // the most gold a brawl can win or lose; the odds themselves belong to the GameMode
+    static final int MAX_BRAWL_GOLD = 10;
+
     // instance variables
     private Hunter hunter;
     private Shop shop;
     private Terrain terrain;
     private String printMessage;
     private boolean toughTown;
-    private boolean easyMode;
-    private boolean samuraiMode;
+    private GameMode mode;
+    private GameRandom random;
     /**
      * The Town Constructor takes in a shop and the surrounding terrain, but leaves the hunter as null until one arrives.
      *
      * @param shop The town's shoppe.
-     * @param toughness The surrounding terrain.
+     * @param mode The difficulty, which decides the odds of everything that happens in town.
+     * @param random The game's source of random rolls.
      */
-    public Town(Shop shop, double toughness, boolean easyMode, boolean samuraiMode) {
+    public Town(Shop shop, GameMode mode, GameRandom random) {
         this.shop = shop;
+        this.mode = mode;
+        this.random = random;
         this.terrain = getNewTerrain();
-        this.easyMode = easyMode;
-        this.samuraiMode = samuraiMode;
 
         // the hunter gets set using the hunterArrives method, which
         // gets called from a client class
@@ -33,17 +42,44 @@ public class Town {
         printMessage = "";
 
         // higher toughness = more likely to be a tough town
-        toughTown = (Math.random() < toughness);
+        toughTown = (random.nextDouble() < mode.getToughness());
+    }
+
+    /**
+     * Rebuilds a town whose terrain and toughness are already known, such as one restored from a snapshot.
+     *
+     * @param shop The town's shoppe.
+     * @param terrain The surrounding terrain.
+     * @param toughTown Whether the town is a tough one.
+     * @param mode The difficulty, which decides the odds of everything that happens in town.
+     * @param random The game's source of random rolls.
+     */
+    public Town(Shop shop, Terrain terrain, boolean toughTown, GameMode mode, GameRandom random) {
+        this.shop = shop;
+        this.mode = mode;
+        this.random = random;
+        this.terrain = terrain;
+        this.toughTown = toughTown;
+        hunter = null;
+        printMessage = "";
     }
 
     public Terrain getTerrain() {
         return terrain;
     }
 
+    public boolean isToughTown() {
+        return toughTown;
+    }
+
     public String getLatestNews() {
         return printMessage;
     }
 
+    public void setLatestNews(String printMessage) {
+        this.printMessage = printMessage;
+    }
+
     /**
      * Assigns an object to the Hunter in town.
      *
@@ -64,23 +100,31 @@ public class Town {
      *
      * @return true if the Hunter was able to leave town.
      */
-    public boolean leaveTown(OutputWindow window) {
+    public boolean leaveTown(GameRenderer window) {
+        long start = System.nanoTime();
+        boolean left = crossTerrain(window);
+        GameMetrics.INSTANCE.leaveTown().finished(start);
+        return left;
+    }
+
+    private boolean crossTerrain(GameRenderer window) {
         boolean canLeaveTown = terrain.canCrossTerrain(hunter);
         if (canLeaveTown) {
             String item = terrain.getNeededItem();
-            window.addTextToWindow("You used your " + item + " to cross the ", Color.BLACK);
-            window.addTextToWindow(terrain.getTerrainName(), Color.CYAN);
-            if(checkItemBreak() && easyMode){
-                window.addTextToWindow("\nA powerful force prevents you from losing your " + item + ".", Color.BLACK);;
-            }else if (checkItemBreak()) {
-                hunter.removeItemFromKit(item);
-                window.addTextToWindow("\nUnfortunately, you lost your " + item + ".", Color.BLACK);;
+            window.addTextToWindow("You used your " + item + " to cross the ", TextColor.BLACK);
+            window.addTextToWindow(terrain.getTerrainName(), TextColor.CYAN);
+            int fate = checkItemBreak();
+            if (fate == GameMode.ITEM_SAVED) {
+                window.addTextToWindow("\nA powerful force prevents you from losing your " + item + ".", TextColor.BLACK);
+            } else if (fate == GameMode.ITEM_BROKEN) {
+                hunter.loseItem(terrain.getNeededItemType());
+                window.addTextToWindow("\nUnfortunately, you lost your " + item + ".", TextColor.BLACK);
             }
             return true;
         }
 
-        window.addTextToWindow("You can't leave town, " + hunter.getHunterName(), Color.BLACK);
-        window.addTextToWindow(". You don't have a " + terrain.getNeededItem() + ".", Color.BLACK);
+        window.addTextToWindow("You can't leave town, " + hunter.getHunterName(), TextColor.BLACK);
+        window.addTextToWindow(". You don't have a " + terrain.getNeededItem() + ".", TextColor.BLACK);
         return false;
     }
 
@@ -98,71 +142,51 @@ public class Town {
      * The chances of finding a fight and winning the gold are based on the toughness of the town.<p>
      * The tougher the town, the easier it is to find a fight, and the harder it is to win one.
      */
-    public void lookForTrouble(OutputWindow window) {
-        double noTroubleChance;
-        if (toughTown) {
-            noTroubleChance = 0.66;
-        } else {
-            noTroubleChance = 0.33;
-        }
-        if (Math.random() > noTroubleChance) {
+    public void lookForTrouble(GameRenderer window) {
+        long start = System.nanoTime();
+        brawl(window);
+        GameMetrics.INSTANCE.lookForTrouble().finished(start);
+    }
+
+    private void brawl(GameRenderer window) {
+        // one roll decides the whole brawl: 0 is no fight, then wins of 1 to MAX_BRAWL_GOLD, then losses
+        int outcome = mode.getBrawlOdds(toughTown).sample(random);
+        if (outcome == 0) {
             printMessage = "You couldn't find any trouble";
+            return;
+        }
+        window.addTextToWindow("You want trouble, stranger!  You got it!\nOof! Umph! Ow!\n", TextColor.RED);
+        int goldDiff = (outcome - 1) % MAX_BRAWL_GOLD + 1;
+        if (hunter.hasItem(Item.SWORD)) {
+            window.addTextToWindow("The braweler, seeing your sword, made him realize that he needs to do better\n", TextColor.BLACK);
+            window.addTextToWindow("He couldn't win this fight, so he gave you his gold", TextColor.BLACK);
+            window.addTextToWindow("\nYou won the brawl and receive ", TextColor.BLACK);
+            window.addTextToWindow( goldDiff + " gold.", TextColor.YELLOW);
+            hunter.changeGold(goldDiff);
+            printMessage += "You won, nice.";
+        } else if (outcome <= MAX_BRAWL_GOLD) {
+            window.addTextToWindow("Okay, stranger! You proved yer mettle. Here, take my gold.", TextColor.BLACK);
+            window.addTextToWindow("\nYou won the brawl and receive ", TextColor.BLACK);
+            window.addTextToWindow( goldDiff + " gold.", TextColor.YELLOW);
+            hunter.changeGold(goldDiff);
+            printMessage += "You won, nice.";
         } else {
-            window.addTextToWindow("You want trouble, stranger!  You got it!\nOof! Umph! Ow!\n", Color.RED);
-            int goldDiff = (int) (Math.random() * 10) + 1;
-            if (Math.random() > noTroubleChance) {
-                if(hunter.hasItemInKit("sword")){
-                    window.addTextToWindow("The braweler, seeing your sword, made him realize that he needs to do better\n", Color.BLACK);
-                    window.addTextToWindow("He couldn't win this fight, so he gave you his gold", Color.BLACK);
-                    window.addTextToWindow("\nYou won the brawl and receive ", Color.BLACK);
-                    window.addTextToWindow( goldDiff + " gold.", Color.YELLOW);
-                    hunter.changeGold(goldDiff);
-                    printMessage += "You won, nice.";
-                } else {
-                    window.addTextToWindow("Okay, stranger! You proved yer mettle. Here, take my gold.", Color.BLACK);
-                    window.addTextToWindow("\nYou won the brawl and receive ", Color.BLACK);
-                    window.addTextToWindow( goldDiff + " gold.", Color.YELLOW);
-                    hunter.changeGold(goldDiff);
-                    printMessage += "You won, nice.";
-                }
-            } else {
-                if(hunter.hasItemInKit("Sword")){
-                    window.addTextToWindow("The braweler, seeing your sword, made him realize that he needs to do better\n", Color.BLACK);
-                    window.addTextToWindow("He couldn't win this fight, so he gave you his gold", Color.BLACK);
-                    window.addTextToWindow("\nYou won the brawl and receive ", Color.BLACK);
-                    window.addTextToWindow( goldDiff + " gold.", Color.YELLOW);
-                    hunter.changeGold(goldDiff);
-                    printMessage += "You won, nice.";
-                } else {
-                    window.addTextToWindow("That'll teach you to go lookin' fer trouble in MY town! Now pay up!", Color.BLACK);
-                    window.addTextToWindow("\nYou lost the brawl and lost ", Color.BLACK);
-                    window.addTextToWindow( goldDiff + " gold.", Color.YELLOW);
-                    hunter.changeGold(-goldDiff);
-                    printMessage += "\n You're weak.";
-                }
-            }
+            window.addTextToWindow("That'll teach you to go lookin' fer trouble in MY town! Now pay up!", TextColor.BLACK);
+            window.addTextToWindow("\nYou lost the brawl and lost ", TextColor.BLACK);
+            window.addTextToWindow( goldDiff + " gold.", TextColor.YELLOW);
+            hunter.changeGold(-goldDiff);
+            printMessage += "\n You're weak.";
         }
     }
 
     public String getTreasure(){
-        String treasure = "";
-        int num = (int) (Math.random() * 4) + 1;
-        if (num == 1){
-            treasure = "crown";
-        } else if (num == 2){
-            treasure = "trophy";
-        } else if (num == 3){
-            treasure = "gem";
-        } else {
-            treasure = "dust";
-        }
-        return treasure;
+        return TREASURES[mode.getTreasureOdds().sample(random)];
     }
     
-    public void info(OutputWindow window) {
-        window.addTextToWindow("\nThis nice little town is surrounded by ", Color.BLACK);
-        window.addTextToWindow(terrain.getTerrainName(), Color.CYAN);
-        window.addTextToWindow(".", Color.BLACK);
+    public void info(GameRenderer window) {
+        window.addTextToWindow("\nThis nice little town is surrounded by ", TextColor.BLACK);
+        window.addTextToWindow(terrain.getTerrainName(), TextColor.CYAN);
+        window.addTextToWindow(".", TextColor.BLACK);
     }
 
     /**
@@ -171,30 +195,70 @@ public class Town {
      * @return A Terrain object.
      */
     private Terrain getNewTerrain() {
-        int rnd = (int) (Math.random() * 6) + 1;
-        if (rnd == 1) {
-            return new Terrain("Mountains", "Rope");
-        } else if (rnd == 2) {
-            return new Terrain("Ocean", "Boat");
-        } else if (rnd == 3) {
-            return new Terrain("Plains", "Horse");
-        } else if (rnd == 4) {
-            return new Terrain("Desert", "Water");
-        } else if (rnd == 5){
-            return new Terrain("Jungle", "Machete");
-        } else {
-            return new Terrain("Marsh", "Boots");
+        return TERRAINS[mode.getTerrainOdds().sample(random)];
+    }
+
+    private static Terrain[] loadTerrains() {
+        Content content = Content.standard();
+        Terrain[] terrains = new Terrain[content.getTerrainCount()];
+        for (int i = 0; i < terrains.length; i++) {
+            terrains[i] = new Terrain(content.getTerrainName(i), Item.byId(content.getTerrainItem(i)));
+        }
+        return terrains;
+    }
+
+    private static String[] loadTreasures() {
+        Content content = Content.standard();
+        String[] treasures = new String[content.getHuntCount()];
+        for (int i = 0; i < treasures.length; i++) {
+            treasures[i] = content.getHuntName(i);
         }
+        return treasures;
+    }
+
+    /**
+     * @param index Between 0 and getTerrainCount() - 1.
+     * @return One of the terrains a town can be surrounded by.
+     */
+    public static Terrain getTerrainByIndex(int index) {
+        return TERRAINS[index];
+    }
+
+    /**
+     * @param terrain A terrain from the table.
+     * @return Its position in the table, or -1 if it isn't one of the standard terrains.
+     */
+    public static int getTerrainIndex(Terrain terrain) {
+        for (int i = 0; i < TERRAINS.length; i++) {
+            if (TERRAINS[i].getTerrainName().equals(terrain.getTerrainName())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param outcome An outcome of GameMode.getTreasureOdds().
+     * @return What a hunt with that outcome turns up: a treasure's name, or a kind of nothing like "dust".
+     */
+    public static String getTreasureName(int outcome) {
+        return TREASURES[outcome];
+    }
+
+    /**
+     * @return How many different terrains there are.
+     */
+    public static int getTerrainCount() {
+        return TERRAINS.length;
     }
 
     /**
      * Determines whether a used item has broken.
      *
-     * @return true if the item broke.
+     * @return GameMode.ITEM_KEPT, ITEM_BROKEN, or ITEM_SAVED if easy mode's protection stepped in.
      */
-    private boolean checkItemBreak() {
-        double rand = Math.random();
-        return (rand < 0.5);
+    private int checkItemBreak() {
+        return mode.getItemBreakOdds().sample(random);
     }
 
 }
\ No newline at end of file
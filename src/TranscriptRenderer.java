@@ -0,0 +1,71 @@
+/**
+ * TranscriptRenderer Class<br /><br />
+ * Keeps everything a game shows as one piece of text, so that two runs of the same game can be compared.
+ * Colors are left out; each clear() of the screen is written as a form feed on a line of its own.<p>
+ * A 64-bit fingerprint of the text is worked out as it arrives. When only the fingerprint is wanted
+ * (the text is kept only if asked for), comparing games never builds the text at all.
+ */
+
+public final class TranscriptRenderer implements GameRenderer {
+    // constants
+    private static final String CLEAR = "\n\f\n";
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+
+    // instance variables
+    private final StringBuilder transcript;
+    private long hash = FNV_OFFSET;
+    private long length;
+
+    /**
+     * Keeps the text as well as its fingerprint.
+     */
+    public TranscriptRenderer() {
+        this(true);
+    }
+
+    /**
+     * @param keepText false to only work out the fingerprint.
+     */
+    public TranscriptRenderer(boolean keepText) {
+        transcript = keepText ? new StringBuilder(1 << 14) : null;
+    }
+
+    public void addTextToWindow(String text, TextColor color) {
+        append(text);
+    }
+
+    public void clear() {
+        append(CLEAR);
+    }
+
+    private void append(String text) {
+        long h = hash;
+        for (int i = 0; i < text.length(); i++) {
+            h = (h ^ text.charAt(i)) * FNV_PRIME;
+        }
+        hash = h;
+        length += text.length();
+        if (transcript != null) {
+            transcript.append(text);
+        }
+    }
+
+    /**
+     * @return Everything shown so far.
+     * @throws IllegalStateException if the text isn't being kept.
+     */
+    public String getTranscript() {
+        if (transcript == null) {
+            throw new IllegalStateException("This renderer only keeps a fingerprint");
+        }
+        return transcript.toString();
+    }
+
+    /**
+     * @return A fingerprint of everything shown so far; equal transcripts have equal fingerprints.
+     */
+    public long getFingerprint() {
+        return GameRandom.mix64(hash ^ length);
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Treasure Class<br /><br />
+ * The registry of the treasures a hunter is searching for.<p>
+ * Each treasure gets its own bit, so the treasures collected so far fit in a single long,
+ * and checking for all of them at once is a single comparison.<p>
+ * The treasures are the ones in the Content file, in the same order.
+ */
+
+public final class Treasure {
+    // static variables
+    private static final Treasure[] REGISTRY = new Treasure[Long.SIZE];
+    private static final Map<String, Treasure> BY_NAME = new HashMap<>();
+    private static int registered = 0;
+
+    // the treasures hidden in the towns; "nothing" lines in the content file, like dust, aren't treasures
+    static {
+        Content content = Content.standard();
+        for (int i = 0; i < content.getTreasureCount(); i++) {
+            register(content.getTreasureName(i));
+        }
+    }
+
+    // instance variables
+    private final String name;
+    private final int id;
+    private final long mask;
+
+    private Treasure(String name, int id) {
+        this.name = name;
+        this.id = id;
+        this.mask = 1L << id;
+    }
+
+    private static Treasure register(String name) {
+        Treasure treasure = new Treasure(name, registered);
+        REGISTRY[registered] = treasure;
+        BY_NAME.put(name, treasure);
+        registered++;
+        return treasure;
+    }
+
+    /**
+     * Looks up a treasure by name, ignoring upper and lower case.
+     *
+     * @param name The name of the treasure, e.g. "crown".
+     * @return The treasure, or null if there is no treasure with that name (such as "dust").
+     */
+    public static Treasure named(String name) {
+        Treasure found = BY_NAME.get(name); // names are registered in lower case, which is how they are usually typed
+        if (found != null) {
+            return found;
+        }
+        for (int i = 0; i < registered; i++) {
+            if (REGISTRY[i].name.equalsIgnoreCase(name)) {
+                return REGISTRY[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param id The id of the treasure.
+     * @return The treasure with that id.
+     */
+    public static Treasure byId(int id) {
+        return REGISTRY[id];
+    }
+
+    /**
+     * @return How many treasures there are.
+     */
+    public static int count() {
+        return registered;
+    }
+
+    /**
+     * @return A mask with the bit of every treasure set.
+     */
+    public static long allMask() {
+        return (1L << registered) - 1;
+    }
+
+    // accessors
+    public String getName() {
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getMask() {
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
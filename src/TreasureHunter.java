@@ -1,6 +1,3 @@
-import java.awt.*;
-import java.util.Scanner;
-
 /**
  * This class is responsible for controlling the Treasure Hunter game.<p>
  * It handles the display of the menu and the processing of the player's choices.<p>
@@ -10,57 +7,252 @@ import java.util.Scanner;
  */
 
 public class TreasureHunter {
-    // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
-
     // instance variables
     private Town currentTown;
     private Hunter hunter;
-    private boolean hardMode;
-    private  boolean easyMode;
-    private boolean samuraiMode;
+    private GameMode mode;
+    private GameMode fixedMode; // played whatever the player answers; null to go by the answer
     private int count = 0;
     private int countForGold = 0;
-    private OutputWindow window;
+    private int turns = 0;
+    private int turnLimit = Integer.MAX_VALUE;
+    private int brawlsWon = 0;
+    private int brawlsLost = 0;
+    private int itemsLost = 0;
+    private GameRenderer window;
+    private Strategy strategy;
+    private GameRandom random;
+    private PriceTable prices;
+    private World world;
+    private long townId;
+    private GameListener listener = GameListener.NONE;
+    private volatile GameState state; // read by other threads without locking; see getState()
+    private GameTimeline timeline;
+    private int maxUndos;     // how many moves undo() can take back; 0 keeps no history
+    private boolean running;  // counted in GameMetrics as a running game
+    private int countedGold;  // this game's share of the gold GameMetrics has in circulation
+
+    // constants
+    private static final int CACHED_TOWNS = 64;
+    // the menu commands; the menu is printed from the same table, in this order
+    private static final CommandRegistry<TreasureHunter> COMMANDS = new CommandRegistry<TreasureHunter>()
+            .register("b", "(B)uy something at the shop.", (game, key) -> game.currentTown.enterShop(key))
+            .register("s", "(S)ell something at the shop.", (game, key) -> game.currentTown.enterShop(key))
+            .register("e", "(E)xplore surrounding terrain.", (game, key) -> game.explore())
+            .register("m", "(M)ove on to a different town.", (game, key) -> game.move())
+            .register("l", "(L)ook for trouble!", (game, key) -> game.lookForTrouble())
+            .register("h", "(H)unt for treasure.", (game, key) -> game.hunt())
+            .register("d", "(D)ig for gold.", (game, key) -> game.dig())
+            .register("x", "Give up the hunt and e(X)it.", (game, key) -> game.exit())
+            .otherwise((game, key) -> game.window.addTextToWindow("\nYikes! That's an invalid option! Try again.", TextColor.BLACK));
+    private static final String MENU = buildMenu();
+    static final double DIG_CHANCE = 0.5;
+    static final int MAX_DIG_GOLD = 20;
+
     /**
-     * Constructs the Treasure Hunter game.
+     * Constructs the Treasure Hunter game played from the keyboard in the terminal.
+     * The window version is built by WindowRunner in the ui module, so the game itself never loads Swing.
      */
     public TreasureHunter() {
+        this(new ConsoleStrategy(InputPipeline.fromStream(System.in)), new AnsiRenderer(System.out));
+    }
+
+    /**
+     * Constructs the Treasure Hunter game.
+     *
+     * @param strategy Makes the player's decisions.
+     * @param window Where the game's text is shown.
+     */
+    public TreasureHunter(Strategy strategy, GameRenderer window) {
+        this(strategy, window, new GameRandom());
+    }
+
+    /**
+     * Constructs a Treasure Hunter game whose rolls all come from the given random source.
+     *
+     * @param strategy Makes the player's decisions.
+     * @param window Where the game's text is shown.
+     * @param random The game's source of random rolls.
+     */
+    public TreasureHunter(Strategy strategy, GameRenderer window, GameRandom random) {
         // these will be initialized in the play method
         currentTown = null;
         hunter = null;
-        hardMode = false;
-        easyMode = false;
-        samuraiMode = false;
-        window = new OutputWindow();
+        mode = GameMode.NORMAL;
+        this.strategy = strategy;
+        this.window = window;
+        this.random = random;
+    }
+
+    /**
+     * Starts the game.
+     *
+     * @return How the game ended.
+     */
+    public GameResult play() {
+        try {
+            start();
+            showMenu();
+        } finally {
+            abandon();
+        }
+        return result();
     }
 
     /**
-     * Starts the game; this is the only public method
+     * Creates the hunter and puts them in the first town, without showing the menu.
+     * The benchmarks use this to drive processChoice() directly.
      */
-    public void play() {
+    void start() {
         welcomePlayer();
+        listener.gameStarted(hunter, getModeName());
+        countStarted();
+        hunter.setListener(listener);
+        buildWorld(random.nextLong());
+        townId = Math.floorMod(random.nextLong(), world.getSize());
         enterTown();
-        showMenu();
+        record();
+    }
+
+    /**
+     * Lets a listener watch everything that changes in this game, including every dice roll.
+     * Must be called before the game starts.
+     *
+     * @param listener The listener to tell.
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+        random.setListener(listener);
+    }
+
+    /**
+     * Plays the game in a mode of its own making instead of the one the player picks,
+     * for trying out settings that aren't in the content file. Must be called before the game starts.
+     *
+     * @param mode The mode to play, or null to go by the player's answer again.
+     */
+    public void setMode(GameMode mode) {
+        fixedMode = mode;
+    }
+
+    /**
+     * Caps the number of moves, so that a bot that never wins or loses can't play forever.
+     *
+     * @param turnLimit The most menu choices that will be processed.
+     */
+    public void setTurnLimit(int turnLimit) {
+        this.turnLimit = turnLimit;
+    }
+
+    // accessors
+    public Hunter getHunter() {
+        return hunter;
+    }
+
+    public Town getCurrentTown() {
+        return currentTown;
+    }
+
+    public boolean hasSearchedTown() {
+        return count == 1;
+    }
+
+    public boolean hasDugTown() {
+        return countForGold == 1;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * The game as it was after the last move. It is safe to call from any thread while the game is being played:
+     * the state never changes, and a new one replaces it after every move.
+     *
+     * @return The latest state, or null before the game has started.
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * Keeps the states of this game so that moves can be taken back. Without it a game only keeps its present
+     * state, so plain play, simulations and the server don't hold on to every turn of a long game.
+     * Must be called before the game starts.
+     *
+     * @param maxUndos How many moves back undo() can go; Integer.MAX_VALUE to keep everything.
+     */
+    public void setMaxUndos(int maxUndos) {
+        if (maxUndos < 0) {
+            throw new IllegalArgumentException("Can't keep " + maxUndos + " undos");
+        }
+        this.maxUndos = maxUndos;
+    }
+
+    /**
+     * @return The states of this game kept for undo (see setMaxUndos()), with whatever has been undone.
+     */
+    public GameTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Takes back the last move, dice and all: the same move made again rolls the same numbers.
+     *
+     * @return false if there was no move to take back, or no more are kept (see setMaxUndos()).
+     */
+    public boolean undo() {
+        if (!timeline.canUndo()) {
+            return false;
+        }
+        timeline = timeline.undo();
+        load(timeline.getPresent());
+        return true;
+    }
+
+    /**
+     * Makes the last move taken back again.
+     *
+     * @return false if there was nothing to redo.
+     */
+    public boolean redo() {
+        if (!timeline.canRedo()) {
+            return false;
+        }
+        timeline = timeline.redo();
+        load(timeline.getPresent());
+        return true;
+    }
+
+    /**
+     * @return "easy", "normal", "hard" or "samurai".
+     */
+    public String getModeName() {
+        return mode.getName();
+    }
+
+    public GameMode getMode() {
+        return mode;
     }
 
     /**
      * Creates a hunter object at the beginning of the game and populates the class member variable with it.
      */
     private void welcomePlayer() {
-        window.addTextToWindow("\nWelcome to TREASURE HUNTER!", Color.BLACK);
-        window.addTextToWindow("\nGoing hunting for the big treasure, eh?", Color.BLACK);
-        window.addTextToWindow("\nWhat's your name, Hunter?", Color.BLACK);
-        String name = SCANNER.nextLine().toLowerCase();
+        window.addTextToWindow("\nWelcome to TREASURE HUNTER!", TextColor.BLACK);
+        window.addTextToWindow("\nGoing hunting for the big treasure, eh?", TextColor.BLACK);
+        window.addTextToWindow("\nWhat's your name, Hunter?", TextColor.BLACK);
+        window.flush();
+        String name = strategy.chooseName().toLowerCase();
+        window.clear();
+        window.addTextToWindow("Hard mode? (y/n/e) OR test: ", TextColor.BLUE);
+        window.flush();
+        String hard = strategy.chooseMode().toLowerCase();
+        mode = (fixedMode != null) ? fixedMode : GameMode.forAnswer(hard);
 
         // set hunter instance variable
-        hunter = new Hunter(name, 20);
-        window.clear();
-        window.addTextToWindow("Hard mode? (y/n/e) OR test: ", Color.BLUE);
-        String hard = SCANNER.nextLine().toLowerCase();
-        if (hard.equals("y")) {
-            hardMode = true;
-        } else if(hard.equals("test")){
+        hunter = new Hunter(name, mode.getStartingGold());
+        if(hard.equals("test")){
             hunter.changeGold(80);
             hunter.buyItem("water", 2);
             hunter.buyItem("rope", 4);
@@ -68,50 +260,206 @@ public class TreasureHunter {
             hunter.buyItem("horse", 12);
             hunter.buyItem("boat", 20);
             hunter.changeGold(44);
-        }else if(hard.equals("e")){
-            easyMode = true;
-            hunter.changeGold(20);
-        } else if(hard.equals("s")){
-           samuraiMode = true;
         }
     }
 
     /**
-     * Creates a new town and adds the Hunter to it.
+     * Takes the Hunter to the town they are at in the world.
      */
     private void enterTown() {
-        double markdown = 0.5;
-        double toughness = 0.4;
-        if(easyMode){
-            markdown = 1;
-            toughness = 0.1;
-        }
-        if (hardMode) {
-            // in hard mode, you get less money back when you sell items
-            markdown = 0.25;
+        // the world builds the Town the first time it is visited, and again if it has been forgotten since
+        currentTown = world.getTown(townId);
+
+        // calling the hunterArrives method, which takes the Hunter
+        // as a parameter; note this also could have been done in the
+        // constructor for Town, but this illustrates another way to associate
+        // an object with an object of a different class
+        currentTown.hunterArrives(hunter);
+        listener.townEntered(currentTown.getTerrain(), currentTown.isToughTown());
+    }
+
+    /**
+     * Creates the world of towns for this game.
+     *
+     * @param worldSeed The seed the world is generated from.
+     */
+    private void buildWorld(long worldSeed) {
+        world = new World(worldSeed, World.DEFAULT_SIZE, mode.getToughness(), mode.getTerrainOdds(), CACHED_TOWNS,
+                (terrain, toughTown) -> new Town(newShop(), terrain, toughTown, mode, random));
+    }
 
-            // and the town is "tougher"
-            toughness = 0.75;
+    /**
+     * Builds the shop for a new town.
+     */
+    private Shop newShop() {
+        // the prices only depend on the mode, so every town's shop shares one table
+        if (prices == null) {
+            prices = PriceTable.standard(mode.getMarkdown());
         }
+        return new Shop(prices, mode.isSamurai(), this.window, strategy);
+    }
 
-        if(samuraiMode){
-            toughness = 0;
+    /**
+     * Captures everything needed to carry on this game later: the hunter, the town, the per-town
+     * hunt and dig flags, the tallies for the result, and where the dice are, so that a copy restored from the snapshot rolls the same numbers.
+     * Taking a snapshot doesn't roll anything, so the game plays the same whether or not it was saved.
+     * A snapshot only names the mode, so a game in a mode of its own (see setMode()) can't be saved.
+     *
+     * @return The snapshot.
+     * @throws IllegalStateException if the game isn't in one of the content file's modes.
+     */
+    public GameSnapshot snapshot() {
+        if (!mode.isInContent()) {
+            throw new IllegalStateException("A game in the made-up mode \"" + mode.getName() + "\" can't be saved");
         }
-        // note that we don't need to access the Shop object
-        // outside of this method, so it isn't necessary to store it as an instance
-        // variable; we can leave it as a local variable
-        Shop shop = new Shop(markdown, samuraiMode, this.window);
+        Terrain terrain = currentTown.getTerrain();
+        return new GameSnapshot(hunter.getHunterName(), getModeName(), hunter.getGold(), hunter.getKitMask(),
+                hunter.getTreasureMask(), hasSearchedTown(), hasDugTown(), turns, terrain.getTerrainName(),
+                terrain.getNeededItem(), currentTown.isToughTown(), currentTown.getLatestNews(), world.getSeed(), townId,
+                random.getSeed(), random.getGamma(), brawlsWon, brawlsLost, itemsLost);
+    }
 
-        // creating the new Town -- which we need to store as an instance
-        // variable in this class, since we need to access the Town
-        // object in other methods of this class
-        currentTown = new Town(shop, toughness, easyMode, this.samuraiMode);
+    /**
+     * Rebuilds a game from a snapshot. Call resume() to carry on playing it.
+     *
+     * @param snapshot The saved game.
+     * @param strategy Makes the player's decisions from here on.
+     * @param window Where the game's text is shown.
+     * @return The restored game.
+     */
+    public static TreasureHunter restore(GameSnapshot snapshot, Strategy strategy, GameRenderer window) {
+        TreasureHunter game = new TreasureHunter(strategy, window,
+                new GameRandom(snapshot.getRandomSeed(), snapshot.getRandomGamma()));
+        game.mode = GameMode.named(snapshot.getMode());
+        game.hunter = new Hunter(snapshot.getHunterName(), snapshot.getGold(), snapshot.getKitMask(), snapshot.getTreasureMask());
+        game.count = snapshot.hasSearchedTown() ? 1 : 0;
+        game.countForGold = snapshot.hasDugTown() ? 1 : 0;
+        game.turns = snapshot.getTurns();
+        game.brawlsWon = snapshot.getBrawlsWon();
+        game.brawlsLost = snapshot.getBrawlsLost();
+        game.itemsLost = snapshot.getItemsLost();
+        game.buildWorld(snapshot.getWorldSeed());
+        game.townId = snapshot.getTownId();
+        Terrain terrain = new Terrain(snapshot.getTerrainName(), snapshot.getNeededItem());
+        game.currentTown = new Town(game.newShop(), terrain, snapshot.isToughTown(), game.mode, game.random);
+        game.currentTown.hunterArrives(game.hunter);
+        game.currentTown.setLatestNews(snapshot.getLatestNews());
+        game.record();
+        return game;
+    }
 
-        // calling the hunterArrives method, which takes the Hunter
-        // as a parameter; note this also could have been done in the
-        // constructor for Town, but this illustrates another way to associate
-        // an object with an object of a different class
+    /**
+     * Starts a copy of a game from the present of a timeline. The copy can undo all the way back
+     * along the timeline, and the game it came from is left alone, so this is how to try out a "what if".
+     * Call resume() to play it through, or playTurn() to make one move at a time.
+     *
+     * @param timeline The states to start from.
+     * @param strategy Makes the player's decisions from here on.
+     * @param window Where the game's text is shown.
+     * @return The restored game.
+     */
+    public static TreasureHunter restore(GameTimeline timeline, Strategy strategy, GameRenderer window) {
+        TreasureHunter game = new TreasureHunter(strategy, window, new GameRandom());
+        game.timeline = timeline;
+        game.load(timeline.getPresent());
+        return game;
+    }
+
+    /**
+     * Puts the game back into a state it was in.
+     */
+    private void load(GameState saved) {
+        if (mode != saved.getMode()) {
+            mode = saved.getMode();
+            prices = null;
+        }
+        hunter = new Hunter(saved.getHunterName(), saved.getGold(), saved.getKitMask(), saved.getTreasureMask());
+        hunter.setListener(listener);
+        count = saved.hasSearchedTown() ? 1 : 0;
+        countForGold = saved.hasDugTown() ? 1 : 0;
+        turns = saved.getTurns();
+        brawlsWon = saved.getBrawlsWon();
+        brawlsLost = saved.getBrawlsLost();
+        itemsLost = saved.getItemsLost();
+        random.jumpTo(saved.getRandomSeed(), saved.getRandomGamma());
+        if (world == null || world.getSeed() != saved.getWorldSeed()) {
+            buildWorld(saved.getWorldSeed());
+        }
+        townId = saved.getTownId();
+        currentTown = new Town(newShop(), saved.getTerrain(), saved.isToughTown(), mode, random);
         currentTown.hunterArrives(hunter);
+        currentTown.setLatestNews(saved.getLatestNews());
+        state = saved;
+        countGold(); // an undo or redo in the middle of a game moves the hunter's gold too
+    }
+
+    /**
+     * Makes a new state from the game as it is now and adds it to the timeline.
+     * The town part of the last state is reused if the hunter hasn't moved.
+     */
+    private void record() {
+        GameState last = state;
+        Terrain terrain = currentTown.getTerrain();
+        boolean toughTown = currentTown.isToughTown();
+        GameState.Place place;
+        if (last != null && last.getPlace().isAt(world.getSeed(), townId, terrain, toughTown)) {
+            place = last.getPlace();
+        } else {
+            place = new GameState.Place(world.getSeed(), townId, terrain, toughTown);
+        }
+        state = new GameState(hunter.getHunterName(), mode, hunter.getGold(), hunter.getKitMask(), hunter.getTreasureMask(),
+                turns, place, hasSearchedTown(), hasDugTown(), currentTown.getLatestNews(), brawlsWon, brawlsLost, itemsLost,
+                random.getSeed(), random.getGamma());
+        timeline = (timeline == null) ? GameTimeline.of(state, maxUndos) : timeline.record(state);
+    }
+
+    /**
+     * Carries on a game rebuilt by restore().
+     *
+     * @return How the game ended.
+     */
+    public GameResult resume() {
+        countStarted();
+        hunter.setListener(listener);
+        try {
+            showMenu();
+        } finally {
+            abandon();
+        }
+        return result();
+    }
+
+    private void countStarted() {
+        GameMetrics.INSTANCE.gameStarted(hunter.getGold());
+        running = true;
+        countedGold = hunter.getGold();
+    }
+
+    /**
+     * Brings the gold GameMetrics has in circulation up to date with the hunter's.
+     * Games that were never started (a copy played a turn at a time) aren't counted at all.
+     */
+    private void countGold() {
+        if (running) {
+            GameMetrics.INSTANCE.goldChanged(hunter.getGold() - countedGold);
+            countedGold = hunter.getGold();
+        }
+    }
+
+    /**
+     * Takes a game that stopped without an ending, because the player hung up or the input ran out,
+     * off the running games. Does nothing if the game ended properly.
+     */
+    private void abandon() {
+        if (running) {
+            running = false;
+            GameMetrics.INSTANCE.gameAbandoned(countedGold);
+        }
+    }
+
+    private GameResult result() {
+        return new GameResult(getModeName(), hunter.hasAllTreasures(), turns, hunter.getGold(),
+                Long.bitCount(hunter.getTreasureMask()), brawlsWon, brawlsLost, itemsLost);
     }
 
     /**
@@ -121,99 +469,149 @@ public class TreasureHunter {
      */
     private void showMenu() {
         String choice = "";
-        while (!choice.equals("x") && hunter.getGold() > 0 && !hunter.hasAllTreasures()) {
-            window.addTextToWindow("\n", Color.WHITE);
+        while (!choice.equals("x") && hunter.getGold() > 0 && !hunter.hasAllTreasures() && turns < turnLimit) {
+            window.addTextToWindow("\n", TextColor.WHITE);
             String c = currentTown.getLatestNews();
-            window.addTextToWindow(c, Color.BLACK);
-            window.addTextToWindow("\n***", Color.BLACK);
+            window.addTextToWindow(c, TextColor.BLACK);
+            window.addTextToWindow("\n***", TextColor.BLACK);
             hunter.info(window);
-//            window.addTextToWindow(hunter.info(), Color.BLACK);
+//            window.addTextToWindow(hunter.info(), TextColor.BLACK);
 
             currentTown.info(window);
-//            window.addTextToWindow(currentTown.info(), Color.BLACK);
-            window.addTextToWindow("\n(B)uy something at the shop.", Color.BLACK);
-            window.addTextToWindow("\n(S)ell something at the shop.", Color.BLACK);
-            window.addTextToWindow("\n(E)xplore surrounding terrain.", Color.BLACK);
-            window.addTextToWindow("\n(M)ove on to a different town.", Color.BLACK);
-            window.addTextToWindow("\n(L)ook for trouble!", Color.BLACK);
-            window.addTextToWindow("\n(H)unt for treasure.", Color.BLACK);
-            window.addTextToWindow("\n(D)ig for gold.", Color.BLACK);
-            window.addTextToWindow("\nGive up the hunt and e(X)it.", Color.BLACK);
-            window.addTextToWindow("\n", Color.WHITE);
-            window.addTextToWindow("What's your next move? ", Color.BLACK);
-            choice = SCANNER.nextLine().toLowerCase();
-            processChoice(choice);
+//            window.addTextToWindow(currentTown.info(), TextColor.BLACK);
+            window.addTextToWindow(MENU, TextColor.BLACK);
+            window.addTextToWindow("\n", TextColor.WHITE);
+            window.addTextToWindow("What's your next move? ", TextColor.BLACK);
+            window.flush(); // show everything before waiting for an answer
+            choice = strategy.chooseMove(this).toLowerCase();
+            playTurn(choice);
 
         }
         end();
     }
 
     /**
-     * Takes the choice received from the menu and calls the appropriate method to carry out the instructions.
+     * Makes one move without asking the strategy, for a bot trying moves out on a copy of the game.
+     *
+     * @param choice The menu command.
+     * @return The state after the move.
+     */
+    public GameState playTurn(String choice) {
+        processChoice(choice);
+        turns++;
+        record();
+        return state;
+    }
+
+    /**
+     * Takes the choice received from the menu and runs the command registered for it.
      * @param choice The action to process.
      */
-    private void processChoice(String choice) {
+    void processChoice(String choice) {
+        listener.commandProcessed(choice);
+        long start = System.nanoTime();
+        carryOut(choice);
+        GameMetrics.INSTANCE.command(choice).finished(start);
+        countGold();
+    }
+
+    private void carryOut(String choice) {
         window.clear();
-        if (choice.equals("b") || choice.equals("s")) {
-            currentTown.enterShop(choice);
-        } else if (choice.equals("e")) {
-            String explore = currentTown.getTerrain().infoString();
-            window.addTextToWindow(explore, Color.BLACK);
-        } else if (choice.equals("m")) {
-            if (currentTown.leaveTown(window)) {
-                // This town is going away so print its news ahead of time.
-                String c3 = currentTown.getLatestNews();
-                window.addTextToWindow(c3, Color.BLACK);
-                enterTown();
-                count = 0;
-                countForGold = 0;
+        COMMANDS.dispatch(this, choice);
+    }
+
+    private static String buildMenu() {
+        StringBuilder str = new StringBuilder();
+        for (String command : COMMANDS.getDescriptions()) {
+            str.append("\n").append(command);
+        }
+        return str.toString();
+    }
+
+    private void explore() {
+        String explore = currentTown.getTerrain().infoString();
+        window.addTextToWindow(explore, TextColor.BLACK);
+    }
+
+    private void move() {
+        long kit = hunter.getKitMask();
+        if (currentTown.leaveTown(window)) {
+            if (hunter.getKitMask() != kit) {
+                itemsLost++;
             }
-        } else if (choice.equals("l")) {
-            currentTown.lookForTrouble(window);
-        } else if (choice.equals("h")) {
-            if (count == 1) {
-                window.addTextToWindow("\nYou have already searched this town", Color.BLACK);
+            // This town is going away so print its news ahead of time.
+            String c3 = currentTown.getLatestNews();
+            window.addTextToWindow(c3, TextColor.BLACK);
+            townId = world.getNeighbor(townId, random.nextInt(World.NEIGHBORS));
+            enterTown();
+            count = 0;
+            countForGold = 0;
+        }
+    }
+
+    private void lookForTrouble() {
+        int gold = hunter.getGold();
+        currentTown.lookForTrouble(window);
+        if (hunter.getGold() > gold) {
+            brawlsWon++;
+            listener.brawlResolved(hunter.getGold() - gold, true);
+        } else if (hunter.getGold() < gold) {
+            brawlsLost++;
+            listener.brawlResolved(gold - hunter.getGold(), false);
+        }
+    }
+
+    private void exit() {
+        window.addTextToWindow("\nFare thee well, " + hunter.getHunterName() + "!", TextColor.BLACK);
+    }
+
+    private void hunt() {
+        if (count == 1) {
+            window.addTextToWindow("\nYou have already searched this town", TextColor.BLACK);
+        } else {
+            String treasure = currentTown.getTreasure();
+            if (Treasure.named(treasure) == null) { // dust, or another kind of nothing from the content file
+                window.addTextToWindow("\nYou found " + treasure + "!", TextColor.BLACK);
+            } else if (hunter.hasItemInTreasureList(treasure)){
+                window.addTextToWindow("\nYou have already collected this " + treasure + "!", TextColor.BLACK);
             } else {
-                String treasure = currentTown.getTreasure();
-                if(treasure.equals("dust")){
-                    window.addTextToWindow("\nYou found dust!", Color.BLACK);
-                } else if (hunter.hasItemInTreasureList(treasure)){
-                    window.addTextToWindow("\nYou have already collected this " + treasure + "!", Color.BLACK);
-                } else {
-                    window.addTextToWindow("\nYou found a " + treasure + "!", Color.BLACK);
-                    hunter.addTreasures(treasure);
-                }
-                count = 1;
+                window.addTextToWindow("\nYou found a " + treasure + "!", TextColor.BLACK);
+                hunter.addTreasures(treasure);
             }
-        } else if (choice.equals("d")) {
-            if (countForGold == 1) {
-                window.addTextToWindow("\nYou already dug for gold in this town", Color.BLACK);
-            } else if(!hunter.hasItemInKit("shovel")) {
-                window.addTextToWindow("\nYou can't dig for gold without a shovel", Color.BLACK);
+            count = 1;
+        }
+    }
+
+    private void dig() {
+        if (countForGold == 1) {
+            window.addTextToWindow("\nYou already dug for gold in this town", TextColor.BLACK);
+        } else if(!hunter.hasItem(Item.SHOVEL)) {
+            window.addTextToWindow("\nYou can't dig for gold without a shovel", TextColor.BLACK);
+        } else {
+            countForGold = 1;
+            if (random.nextDouble() < DIG_CHANCE) {
+                int gold = random.nextInt(MAX_DIG_GOLD) + 1;
+                window.addTextToWindow("\nYou dug up " + gold + " gold!", TextColor.BLACK);
+                hunter.changeGold(gold);
             } else {
-                countForGold = 1;
-                if (Math.random() < 0.5) {
-                    int gold = (int) (Math.random() * 20) + 1;
-                    window.addTextToWindow("\nYou dug up " + gold + " gold!", Color.BLACK);
-                    hunter.changeGold(gold);
-                } else {
-                    window.addTextToWindow("\nYou dug but only found dirt", Color.BLACK);
-                }
+                window.addTextToWindow("\nYou dug but only found dirt", TextColor.BLACK);
             }
-        } else if (choice.equals("x")) {
-            window.addTextToWindow("\nFare thee well, " + hunter.getHunterName() + "!", Color.BLACK);
-        } else {
-            window.addTextToWindow("\nYikes! That's an invalid option! Try again.", Color.BLACK);
         }
     }
+
     private void end(){
-        window.addTextToWindow("\nFare thee well, " + hunter.getHunterName(), Color.BLACK);
+        listener.gameEnded(hunter.hasAllTreasures());
+        countGold();
+        running = false;
+        GameMetrics.INSTANCE.gameEnded(hunter.hasAllTreasures(), countedGold);
+        window.addTextToWindow("\nFare thee well, " + hunter.getHunterName(), TextColor.BLACK);
         if (hunter.hasAllTreasures()){
-            window.addTextToWindow( ", you have bested this game.", Color.GREEN);
-            window.addTextToWindow( "\nGOOD ENDING", Color.GREEN);
+            window.addTextToWindow( ", you have bested this game.", TextColor.GREEN);
+            window.addTextToWindow( "\nGOOD ENDING", TextColor.GREEN);
         } else {
-            window.addTextToWindow( ", you are out of money!", Color.RED);
-            window.addTextToWindow("\nBAD ENDING", Color.RED);
+            window.addTextToWindow( ", you are out of money!", TextColor.RED);
+            window.addTextToWindow("\nBAD ENDING", TextColor.RED);
         }
+        window.flush();
     }
 }
\ No newline at end of file
@@ -1,6 +1,70 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * Starts an interactive game in the terminal.<p>
+ * With --script file, the answers are read from the file instead of the keyboard,
+ * and with --seed n the dice roll the same numbers every time, so a script from GameFuzzer plays out the same way.
+ * With --journal file, the game's events are written to an EventJournal, and with --events they are printed
+ * to the error stream as they happen; either way that work is done by subscribers of an EventRing,
+ * on threads of their own, so it never holds up a turn.<p>
+ * The game in a window is started by WindowRunner, in the ui module.
+ */
+
 public class TreasureHunterRunner {
-    public static void main(String[] args) {
-        TreasureHunter game = new TreasureHunter();
-        game.play();
+    public static void main(String[] args) throws IOException {
+        LineSource input = null;
+        Path journalFile = null;
+        boolean printEvents = false;
+        GameRandom random = new GameRandom();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--script") && i + 1 < args.length) {
+                input = InputPipeline.fromFile(Path.of(args[++i]));
+            } else if (args[i].equals("--journal") && i + 1 < args.length) {
+                journalFile = Path.of(args[++i]);
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                random = new GameRandom(Long.parseLong(args[++i]));
+            } else if (args[i].equals("--events")) {
+                printEvents = true;
+            }
+            // --terminal, the old way of asking for the terminal, is the default now
+        }
+        if (input == null) {
+            input = InputPipeline.fromStream(System.in);
+        }
+        TreasureHunter game = new TreasureHunter(new ConsoleStrategy(input), new AnsiRenderer(System.out), random);
+        if (journalFile == null && !printEvents) {
+            play(game);
+            return;
+        }
+        EventJournal journal = (journalFile != null) ? new EventJournal(journalFile, 1000) : null;
+        try (EventRing events = new EventRing()) {
+            if (journal != null) {
+                events.subscribe("journal", journal.recorder(0));
+            }
+            if (printEvents) {
+                events.subscribe("log", event -> System.err.println("[" + event.getSequence() + "] " + event));
+            }
+            game.setListener(events.publisher());
+            play(game);
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
     }
-}
\ No newline at end of file
+
+    /**
+     * Plays a game to the end, or until its input runs out.
+     *
+     * @param game The game to play.
+     */
+    public static void play(TreasureHunter game) {
+        try {
+            game.play();
+        } catch (NoSuchElementException e) {
+            System.out.println("\nThe input ran out before the game was over.");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+/**
+ * ValueSketch Class<br /><br />
+ * A summary of a stream of whole numbers (gold, turns, fights...) that takes the same small amount of memory
+ * however many numbers go in, and that can be merged with other sketches.<p>
+ * It keeps the exact count, sum, smallest and largest value, and a histogram: every value from -63 to 63
+ * has a bucket of its own, and past that each power of two is split into eight buckets, so a quantile read
+ * back is within about 6% of the real one. The bucket arrays only grow as far as the largest value seen,
+ * and never past a fixed size.<p>
+ * A sketch isn't thread-safe: each thread fills in its own and they are merged at the end.
+ */
+
+public final class ValueSketch {
+    // constants
+    private static final int EXACT = 64;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_POWER = 6; // 2^6 == EXACT
+    static final int MAX_BUCKETS = EXACT + (Long.SIZE - 1 - FIRST_POWER) * SUB_BUCKETS;
+
+    // instance variables
+    private long[] positive = new long[0]; // zero and up
+    private long[] negative = new long[0]; // by magnitude
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * @param value The next value of the stream.
+     */
+    public void record(long value) {
+        if (value >= 0) {
+            positive = add(positive, bucketOf(value), 1);
+        } else {
+            negative = add(negative, bucketOf(value == Long.MIN_VALUE ? Long.MAX_VALUE : -value), 1);
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds everything another sketch has seen to this one.
+     *
+     * @param other The sketch to merge in.
+     */
+    public void merge(ValueSketch other) {
+        for (int i = 0; i < other.positive.length; i++) {
+            if (other.positive[i] != 0) {
+                positive = add(positive, i, other.positive[i]);
+            }
+        }
+        for (int i = 0; i < other.negative.length; i++) {
+            if (other.negative[i] != 0) {
+                negative = add(negative, i, other.negative[i]);
+            }
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private static long[] add(long[] buckets, int bucket, long n) {
+        if (bucket >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, Math.min(MAX_BUCKETS, Math.max(bucket + 1, buckets.length * 2)));
+        }
+        buckets[bucket] += n;
+        return buckets;
+    }
+
+    private static int bucketOf(long magnitude) {
+        if (magnitude < EXACT) {
+            return (int) magnitude;
+        }
+        int power = Long.SIZE - 1 - Long.numberOfLeadingZeros(magnitude);
+        int sub = (int) (magnitude >>> (power - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT + (power - FIRST_POWER) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return The middle of the range of magnitudes that land in a bucket.
+     */
+    private static long middleOf(int bucket) {
+        if (bucket < EXACT) {
+            return bucket;
+        }
+        int power = (bucket - EXACT) / SUB_BUCKETS + FIRST_POWER;
+        int sub = (bucket - EXACT) % SUB_BUCKETS;
+        long width = 1L << (power - SUB_BUCKET_BITS);
+        return (1L << power) + sub * width + width / 2;
+    }
+
+    // accessors
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return (count == 0) ? 0 : (double) sum / count;
+    }
+
+    public long getMin() {
+        return (count == 0) ? 0 : min;
+    }
+
+    public long getMax() {
+        return (count == 0) ? 0 : max;
+    }
+
+    /**
+     * @param fraction Between 0 and 1, e.g. 0.5 for the median.
+     * @return A value that fraction of the stream is at or below.
+     */
+    public long getQuantile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = negative.length - 1; i >= 0; i--) {
+            seen += negative[i];
+            if (seen >= rank) {
+                return clamp(-middleOf(i));
+            }
+        }
+        for (int i = 0; i < positive.length; i++) {
+            seen += positive[i];
+            if (seen >= rank) {
+                return clamp(middleOf(i));
+            }
+        }
+        return max;
+    }
+
+    private long clamp(long value) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
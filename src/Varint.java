@@ -0,0 +1,71 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Varint Class<br /><br />
+ * Reads and writes numbers in as few bytes as they need: 7 bits per byte, with the top bit
+ * marking that another byte follows. Small numbers, which is most of what a game records, take a single byte.
+ * Signed numbers are zig-zag encoded first so that small negative numbers stay small too.
+ */
+
+public final class Varint {
+    // the most bytes a long can take
+    public static final int MAX_BYTES = 10;
+
+    private Varint() {
+    }
+
+    public static void writeUnsigned(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static long readUnsigned(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 64) {
+                throw new IllegalArgumentException("Varint is longer than " + MAX_BYTES + " bytes");
+            }
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    public static void writeSigned(ByteBuffer buffer, long value) {
+        writeUnsigned(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readSigned(ByteBuffer buffer) {
+        long zigzag = readUnsigned(buffer);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Writes a string as its length in bytes followed by its UTF-8 bytes.
+     */
+    public static void writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsigned(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[(int) readUnsigned(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The most bytes writeString() can take for the given string.
+     */
+    public static int maxStringBytes(String value) {
+        return MAX_BYTES + value.length() * 3;
+    }
+}
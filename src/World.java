@@ -0,0 +1,163 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+
+/**
+ * World Class<br /><br />
+ * A seeded map of towns, each linked to a few neighbors across the terrain that surrounds it.<p>
+ * Nothing is stored up front. Towns are numbered, and the terrain and toughness of a block of
+ * CHUNK_SIZE neighboring towns are generated together, from the world seed and the block number, the first
+ * time any of them is needed. Both the blocks and the Town objects built from them sit in small caches that
+ * forget the least recently used entry when full, and anything forgotten is generated again, identically,
+ * from the seed. So a world of millions of towns takes the same small amount of memory as a world of ten,
+ * and moving to a neighbor is a couple of hash lookups.
+ */
+
+public class World {
+    // constants
+    public static final int NEIGHBORS = 3;
+    public static final int CHUNK_SIZE = 64;
+    public static final long DEFAULT_SIZE = 1L << 24;
+
+    // instance variables
+    private final long seed;
+    private final long size;
+    private final double toughness;
+    private final AliasTable terrainOdds;
+    private final BiFunction<Terrain, Boolean, Town> townBuilder;
+    private final LruCache<Chunk> chunks;
+    private final LruCache<Town> towns;
+
+    /**
+     * @param seed The seed the whole world is generated from.
+     * @param size How many towns there are; at least 2, so every road leads to another town.
+     * @param toughness The chance of a town being a tough one.
+     * @param maxCachedTowns The most Town objects kept at once.
+     * @param townBuilder Builds a town from its terrain and whether it is tough.
+     */
+    public World(long seed, long size, double toughness, int maxCachedTowns, BiFunction<Terrain, Boolean, Town> townBuilder) {
+        this(seed, size, toughness, AliasTable.uniform(Town.getTerrainCount()), maxCachedTowns, townBuilder);
+    }
+
+    /**
+     * @param terrainOdds How likely each of Town's terrains is.
+     */
+    public World(long seed, long size, double toughness, AliasTable terrainOdds, int maxCachedTowns,
+                 BiFunction<Terrain, Boolean, Town> townBuilder) {
+        if (size < 2) {
+            throw new IllegalArgumentException("A world needs at least 2 towns, not " + size);
+        }
+        this.seed = seed;
+        this.size = size;
+        this.toughness = toughness;
+        this.terrainOdds = terrainOdds;
+        this.townBuilder = townBuilder;
+        chunks = new LruCache<>(Math.max(1, maxCachedTowns / 4));
+        towns = new LruCache<>(maxCachedTowns);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @param townId The number of the town.
+     * @return The town, built again from the seed if it isn't in the cache.
+     */
+    public Town getTown(long townId) {
+        Town town = towns.get(townId);
+        if (town == null) {
+            town = townBuilder.apply(getTerrain(townId), isToughTown(townId));
+            towns.put(townId, town);
+        }
+        return town;
+    }
+
+    /**
+     * @param townId The number of the town.
+     * @return The terrain surrounding the town.
+     */
+    public Terrain getTerrain(long townId) {
+        return Town.getTerrainByIndex(chunkOf(townId).terrains[(int) (townId % CHUNK_SIZE)]);
+    }
+
+    /**
+     * @param townId The number of the town.
+     * @return Whether the town is a tough one.
+     */
+    public boolean isToughTown(long townId) {
+        return (chunkOf(townId).toughTowns & (1L << (townId % CHUNK_SIZE))) != 0;
+    }
+
+    /**
+     * Finds where one of a town's roads leads. The first two lead to towns close by, the last one far away.
+     *
+     * @param townId The number of the town.
+     * @param edge Which road to take, between 0 and NEIGHBORS - 1.
+     * @return The number of the town at the other end.
+     */
+    public long getNeighbor(long townId, int edge) {
+        long hash = GameRandom.mix64(seed ^ GameRandom.mix64(townId * NEIGHBORS + edge));
+        // every step is between 1 and size - 1, so no road leads back to the town it starts from
+        long step;
+        if (edge < NEIGHBORS - 1) {
+            step = 1 + Math.floorMod(hash, Math.min(CHUNK_SIZE, size - 1)); // stays within a chunk or two, so it is usually cached
+        } else {
+            step = 1 + Math.floorMod(hash, size - 1);
+        }
+        return (townId + step) % size;
+    }
+
+    private Chunk chunkOf(long townId) {
+        if (townId < 0 || townId >= size) {
+            throw new IllegalArgumentException("No town " + townId + " in a world of " + size);
+        }
+        long chunkId = townId / CHUNK_SIZE;
+        Chunk chunk = chunks.get(chunkId);
+        if (chunk == null) {
+            chunk = new Chunk(new SplittableRandom(GameRandom.mix64(seed + GameRandom.mix64(chunkId))), toughness, terrainOdds);
+            chunks.put(chunkId, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * The terrain and toughness of CHUNK_SIZE neighboring towns.
+     */
+    private static class Chunk {
+        private byte[] terrains;
+        private long toughTowns; // one bit per town
+
+        Chunk(SplittableRandom random, double toughness, AliasTable terrainOdds) {
+            terrains = new byte[CHUNK_SIZE];
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                terrains[i] = (byte) terrainOdds.sample(random.nextDouble());
+                if (random.nextDouble() < toughness) {
+                    toughTowns |= 1L << i;
+                }
+            }
+        }
+    }
+
+    /**
+     * A map that forgets its least recently used entry once it holds more than its capacity.
+     */
+    private static class LruCache<V> extends LinkedHashMap<Long, V> {
+        private int capacity;
+
+        LruCache(int capacity) {
+            super(capacity * 2, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import java.awt.Color;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JFrame;
+import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+/**
+ * The OutputWindow shows the game in a Swing window.<p>
+ * Text is not drawn as soon as it is added. The game thread collects it as runs of same-colored text,
+ * and flush() hands the whole batch to the Event Dispatch Thread in one go, so a menu redraw is a single
+ * update of the document instead of one per fragment, and Swing is only ever touched from its own thread.<p>
+ * The window keeps a bounded scrollback: once it holds more than its line cap, the oldest lines are cut from the top,
+ * so the document, and the work of laying it out, never grows past the cap.<p>
+ * This is the only part of the game that uses Swing, so it lives in the ui module; the game itself never loads AWT.
+ */
+public class OutputWindow implements GameRenderer {
+    // constants
+    private static final int FONT_SIZE = 25;
+    private static final int DEFAULT_MAX_LINES = 500;
+
+    // instance variables, only used on the Event Dispatch Thread
+    private StyledDocument doc;
+    private JTextPane textPane;
+    private ScrollbackBuffer scrollback;
+
+    // instance variables, only used on the game thread
+    private Map<TextColor, AttributeSet> styles;
+    private List<StyledRun> pending;
+    private boolean clearPending;
+
+    public OutputWindow() {
+        this(DEFAULT_MAX_LINES);
+    }
+
+    /**
+     * @param maxLines The most lines kept in the window before the oldest are dropped.
+     */
+    public OutputWindow(int maxLines) {
+        scrollback = new ScrollbackBuffer(maxLines);
+        styles = new EnumMap<>(TextColor.class);
+        pending = new ArrayList<>();
+        clearPending = false;
+        try {
+            SwingUtilities.invokeAndWait(this::buildFrame);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while opening the window", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Could not open the window", e.getCause());
+        }
+    }
+
+    private void buildFrame() {
+        JFrame frame = new JFrame("Test");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); // causes program to end when window is X'd out
+        frame.setSize(500, 400); // window size
+        frame.setLocation(300, 50); // where on screen window appears
+        textPane = new JTextPane(); // panel that can handle custom text
+        textPane.setEditable(false); // prevents user from typing into window
+        doc = textPane.getStyledDocument(); // call getter method for panel's style doc
+        frame.add(textPane); // add the panel to the frame
+        frame.setVisible(true); // display the frame on screen
+    }
+
+    public void addTextToWindow(String text, TextColor color) {
+        AttributeSet style = styleFor(color);
+        int last = pending.size() - 1;
+        if (last >= 0 && pending.get(last).style == style) {
+            pending.get(last).text.append(text); // same color as the text before it, so extend that run
+        } else {
+            pending.add(new StyledRun(text, style));
+        }
+    }
+
+    public void clear() {
+        pending.clear(); // nothing added since the last flush would survive the clear anyway
+        clearPending = true;
+    }
+
+    public void flush() {
+        if (pending.isEmpty() && !clearPending) {
+            return;
+        }
+        List<StyledRun> batch = pending;
+        boolean clearFirst = clearPending;
+        pending = new ArrayList<>();
+        clearPending = false;
+        SwingUtilities.invokeLater(() -> apply(batch, clearFirst));
+    }
+
+    /**
+     * Writes a batch of runs into the document. Runs on the Event Dispatch Thread.
+     */
+    private void apply(List<StyledRun> batch, boolean clearFirst) {
+        try {
+            if (clearFirst) {
+                doc.remove(0, doc.getLength());
+                scrollback.clear();
+            }
+            for (StyledRun run : batch) {
+                doc.insertString(doc.getLength(), run.text.toString(), run.style); // insert text at end the panel
+                scrollback.append(run.text);
+            }
+            int trim = scrollback.takeTrim();
+            if (trim > 0) {
+                doc.remove(0, trim); // cut the lines that fell out of the scrollback
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Text was written outside the document", e);
+        }
+    }
+
+    /**
+     * Looks up the style for a color, building it the first time the color is used.
+     * Styles are never changed once built, so they can be handed to the Event Dispatch Thread safely.
+     */
+    private AttributeSet styleFor(TextColor color) {
+        AttributeSet style = styles.get(color);
+        if (style == null) {
+            SimpleAttributeSet attributes = new SimpleAttributeSet();
+            StyleConstants.setFontSize(attributes, FONT_SIZE);
+            StyleConstants.setForeground(attributes, new Color(color.getRgb()));
+            style = attributes.copyAttributes();
+            styles.put(color, style);
+        }
+        return style;
+    }
+
+    /**
+     * A piece of text that is all the same color.
+     */
+    private static class StyledRun {
+        private StringBuilder text;
+        private AttributeSet style;
+
+        StyledRun(String text, AttributeSet style) {
+            this.text = new StringBuilder(text);
+            this.style = style;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * Starts an interactive game in a Swing window, with the answers typed in the terminal it was started from.<p>
+ * This is the only entry point that loads AWT and Swing; TreasureHunterRunner plays the same game in the terminal.
+ */
+
+public class WindowRunner {
+    public static void main(String[] args) {
+        TreasureHunter game = new TreasureHunter(new ConsoleStrategy(InputPipeline.fromStream(System.in)), new OutputWindow());
+        TreasureHunterRunner.play(game);
+    }
+}